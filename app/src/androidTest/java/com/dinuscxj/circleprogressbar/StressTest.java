@@ -0,0 +1,89 @@
+package com.dinuscxj.circleprogressbar;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.filters.LargeTest;
+import android.support.test.rule.ActivityTestRule;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs {@link StressActivity} scrolling by itself and reports its frame statistics, so a rendering change
+ * can be compared before and after on the same workload and emulator image:
+ * <pre>
+ * adb shell am instrument -w -r -e class com.dinuscxj.circleprogressbar.StressTest \
+ *     -e barCount 2000 -e columns 8 -e durationMs 20000 \
+ *     com.dinuscxj.circleprogressbar.test/android.support.test.runner.AndroidJUnitRunner
+ * </pre>
+ * The statistics are reported in the instrumentation status and logged with the tag StressTest.
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class StressTest {
+    private static final String TAG = "StressTest";
+
+    private static final long DEFAULT_WARM_UP_MS = 3000;
+    private static final long DEFAULT_DURATION_MS = 10000;
+
+    @Rule
+    public final ActivityTestRule<StressActivity> mActivityRule =
+            new ActivityTestRule<>(StressActivity.class, false, false);
+
+    @Test
+    public void scrollAnimatingBars() throws Throwable {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        Intent intent = new Intent()
+                .putExtra(StressActivity.EXTRA_BAR_COUNT,
+                        intArgument(arguments, "barCount", StressActivity.DEFAULT_BAR_COUNT))
+                .putExtra(StressActivity.EXTRA_COLUMNS,
+                        intArgument(arguments, "columns", StressActivity.DEFAULT_COLUMNS))
+                .putExtra(StressActivity.EXTRA_ANIMATION_DURATION_MS,
+                        longArgument(arguments, "animationDurationMs", StressActivity.DEFAULT_ANIMATION_DURATION_MS))
+                .putExtra(StressActivity.EXTRA_AUTO_SCROLL, true);
+        final StressActivity activity = mActivityRule.launchActivity(intent);
+
+        //the first frames inflate the grid and build the caches
+        SystemClock.sleep(longArgument(arguments, "warmUpMs", DEFAULT_WARM_UP_MS));
+        mActivityRule.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                activity.getFrameStats().reset();
+            }
+        });
+        SystemClock.sleep(longArgument(arguments, "durationMs", DEFAULT_DURATION_MS));
+
+        FrameStats.Snapshot snapshot = activity.getFrameStats().snapshot();
+        Log.i(TAG, snapshot.toString());
+
+        Bundle results = new Bundle();
+        results.putInt("frames", snapshot.frameCount);
+        results.putInt("jankyFrames", snapshot.jankyFrameCount);
+        results.putFloat("jankyFramePercent", snapshot.jankyFramePercent());
+        results.putLong("p50Nanos", snapshot.p50Nanos);
+        results.putLong("p90Nanos", snapshot.p90Nanos);
+        results.putLong("p95Nanos", snapshot.p95Nanos);
+        results.putLong("p99Nanos", snapshot.p99Nanos);
+        results.putInt("gcCount", snapshot.gcCount);
+        InstrumentationRegistry.getInstrumentation().sendStatus(0, results);
+
+        assertTrue("no frame was recorded", snapshot.frameCount > 0);
+    }
+
+    private static int intArgument(Bundle arguments, String key, int defaultValue) {
+        String value = arguments.getString(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static long longArgument(Bundle arguments, String key, long defaultValue) {
+        String value = arguments.getString(key);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+}
@@ -0,0 +1,221 @@
+package com.dinuscxj.circleprogressbar;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import android.annotation.TargetApi;
+import android.app.Activity;
+import android.os.Build;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.view.Choreographer;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+/**
+ * Records the frame times of an activity and the GC count since the last reset. The frame times come from
+ * FrameMetrics since Nougat, which include the render thread, and from the intervals of the Choreographer
+ * frames before. A frame is janky when it takes longer than a refresh of the display (half a refresh more
+ * for the intervals, which are whole refreshes).
+ */
+public final class FrameStats {
+    //The frame times kept for the percentiles, the older ones are overwritten
+    private static final int MAX_FRAMES = 4096;
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final float DEFAULT_REFRESH_RATE = 60.0f;
+
+    private final long mRefreshNanos;
+
+    //The latest frame times, guarded by this
+    private final long[] mFrameNanos = new long[MAX_FRAMES];
+    private final long[] mSortedFrameNanos = new long[MAX_FRAMES];
+    private int mFrameCount;
+    private int mJankyFrameCount;
+    private int mStartGcCount;
+
+    private final Activity mActivity;
+    private HandlerThread mMetricsThread;
+    private Object mFrameMetricsListener;
+    //Created on the first start, the Choreographer is missing before Jelly Bean
+    private FrameIntervalCallback mFrameIntervalCallback;
+
+    public FrameStats(Activity activity) {
+        float refreshRate = activity.getWindowManager().getDefaultDisplay().getRefreshRate();
+        mRefreshNanos = (long) (NANOS_PER_SECOND / (refreshRate > 0.0f ? refreshRate : DEFAULT_REFRESH_RATE));
+        mActivity = activity;
+        reset();
+    }
+
+    public void start() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            startFrameMetrics();
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mFrameIntervalCallback == null) {
+                mFrameIntervalCallback = new FrameIntervalCallback();
+            }
+            mFrameIntervalCallback.start();
+        }
+    }
+
+    public void stop() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            stopFrameMetrics();
+        } else if (mFrameIntervalCallback != null) {
+            mFrameIntervalCallback.stop();
+        }
+    }
+
+    /**
+     * Drop the recorded frames and count the GCs from now on
+     */
+    public synchronized void reset() {
+        mFrameCount = 0;
+        mJankyFrameCount = 0;
+        mStartGcCount = gcCount();
+    }
+
+    public synchronized Snapshot snapshot() {
+        int count = Math.min(mFrameCount, MAX_FRAMES);
+        System.arraycopy(mFrameNanos, 0, mSortedFrameNanos, 0, count);
+        Arrays.sort(mSortedFrameNanos, 0, count);
+
+        int gcCount = gcCount();
+        return new Snapshot(mFrameCount, mJankyFrameCount,
+                percentile(count, 50), percentile(count, 90), percentile(count, 95), percentile(count, 99),
+                gcCount < 0 || mStartGcCount < 0 ? -1 : gcCount - mStartGcCount);
+    }
+
+    private long percentile(int count, int percent) {
+        if (count == 0) {
+            return 0;
+        }
+        return mSortedFrameNanos[Math.min(count - 1, count * percent / 100)];
+    }
+
+    private synchronized void onFrame(long frameNanos, long jankNanos) {
+        mFrameNanos[mFrameCount % MAX_FRAMES] = frameNanos;
+        mFrameCount++;
+        if (frameNanos > jankNanos) {
+            mJankyFrameCount++;
+        }
+    }
+
+    /**
+     * @return the GCs since the process started, -1 if the runtime doesn't tell
+     */
+    private static int gcCount() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return -1;
+        }
+        String gcCount = Debug.getRuntimeStat("art.gc.gc-count");
+        try {
+            return gcCount == null ? -1 : Integer.parseInt(gcCount);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void startFrameMetrics() {
+        if (mFrameMetricsListener != null) {
+            return;
+        }
+        mMetricsThread = new HandlerThread("FrameStats");
+        mMetricsThread.start();
+        Window.OnFrameMetricsAvailableListener listener = new Window.OnFrameMetricsAvailableListener() {
+            @Override
+            public void onFrameMetricsAvailable(Window window, FrameMetrics frameMetrics, int dropCount) {
+                if (frameMetrics.getMetric(FrameMetrics.FIRST_DRAW_FRAME) == 0) {
+                    onFrame(frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), mRefreshNanos);
+                }
+            }
+        };
+        mActivity.getWindow().addOnFrameMetricsAvailableListener(listener, new Handler(mMetricsThread.getLooper()));
+        mFrameMetricsListener = listener;
+    }
+
+    @TargetApi(Build.VERSION_CODES.N)
+    private void stopFrameMetrics() {
+        if (mFrameMetricsListener == null) {
+            return;
+        }
+        mActivity.getWindow().removeOnFrameMetricsAvailableListener(
+                (Window.OnFrameMetricsAvailableListener) mFrameMetricsListener);
+        mFrameMetricsListener = null;
+        mMetricsThread.quit();
+        mMetricsThread = null;
+    }
+
+    /**
+     * Records the intervals between the Choreographer frames, before FrameMetrics
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private final class FrameIntervalCallback implements Choreographer.FrameCallback {
+        private long mLastFrameTimeNanos;
+        private boolean mRunning;
+
+        void start() {
+            if (!mRunning) {
+                mRunning = true;
+                mLastFrameTimeNanos = 0;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        void stop() {
+            mRunning = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mLastFrameTimeNanos != 0) {
+                onFrame(frameTimeNanos - mLastFrameTimeNanos, mRefreshNanos * 3 / 2);
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+            if (mRunning) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+    }
+
+    /**
+     * The frame statistics since the last reset, the percentiles cover the latest frames only
+     */
+    public static final class Snapshot {
+        public final int frameCount;
+        public final int jankyFrameCount;
+        public final long p50Nanos;
+        public final long p90Nanos;
+        public final long p95Nanos;
+        public final long p99Nanos;
+        //-1 if unknown
+        public final int gcCount;
+
+        Snapshot(int frameCount, int jankyFrameCount, long p50Nanos, long p90Nanos, long p95Nanos, long p99Nanos,
+                 int gcCount) {
+            this.frameCount = frameCount;
+            this.jankyFrameCount = jankyFrameCount;
+            this.p50Nanos = p50Nanos;
+            this.p90Nanos = p90Nanos;
+            this.p95Nanos = p95Nanos;
+            this.p99Nanos = p99Nanos;
+            this.gcCount = gcCount;
+        }
+
+        public float jankyFramePercent() {
+            return frameCount == 0 ? 0.0f : jankyFrameCount * 100.0f / frameCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "frames %d  janky %d (%.1f%%)\np50 %.1fms  p90 %.1fms  p95 %.1fms  p99 %.1fms\ngc %s",
+                    frameCount, jankyFrameCount, jankyFramePercent(),
+                    p50Nanos / 1e6, p90Nanos / 1e6, p95Nanos / 1e6, p99Nanos / 1e6,
+                    gcCount < 0 ? "n/a" : String.valueOf(gcCount));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.dinuscxj.circleprogressbar;
 
 import android.animation.ValueAnimator;
+import android.content.Intent;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
@@ -10,6 +11,8 @@ import android.text.Spanned;
 import android.text.style.AbsoluteSizeSpan;
 import android.text.style.BackgroundColorSpan;
 import android.text.style.RelativeSizeSpan;
+import android.view.Menu;
+import android.view.MenuItem;
 
 import com.dinuscxj.progressbar.CircleProgressBar;
 
@@ -47,6 +50,22 @@ public class MainActivity extends AppCompatActivity {
         mCustomProgressBar6.setProgressFormatter(null);
     }
 
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.menu_main, menu);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getItemId() == R.id.action_stress) {
+            startActivity(new Intent(this, StressActivity.class)
+                    .putExtra(StressActivity.EXTRA_AUTO_SCROLL, true));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
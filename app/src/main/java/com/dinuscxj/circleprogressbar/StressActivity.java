@@ -0,0 +1,232 @@
+package com.dinuscxj.circleprogressbar;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.animation.ValueAnimator;
+import android.graphics.Paint;
+import android.os.Bundle;
+import android.support.v4.content.ContextCompat;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.TypedValue;
+import android.view.ViewGroup;
+import android.view.animation.LinearInterpolator;
+import android.widget.TextView;
+
+import com.dinuscxj.progressbar.CircleProgressBar;
+import com.dinuscxj.progressbar.CircleProgressBarStyle;
+import com.dinuscxj.progressbar.CircleProgressDrawable;
+
+/**
+ * A grid of many continuously animating progress bars in every style, shader and cap, with an overlay of
+ * the frame times, the janky frames and the GCs. Configured by the extras below, so the same workload can be
+ * run before and after a rendering change, see the StressTest instrumentation test.
+ */
+public class StressActivity extends AppCompatActivity {
+    public static final String EXTRA_BAR_COUNT = "bar_count";
+    public static final String EXTRA_COLUMNS = "columns";
+    public static final String EXTRA_ANIMATION_DURATION_MS = "animation_duration_ms";
+    //Whether the grid scrolls up and down by itself
+    public static final String EXTRA_AUTO_SCROLL = "auto_scroll";
+
+    static final int DEFAULT_BAR_COUNT = 1000;
+    static final int DEFAULT_COLUMNS = 6;
+    static final long DEFAULT_ANIMATION_DURATION_MS = 2000;
+
+    //The default max of the bars
+    private static final int MAX_PROGRESS = 100;
+    //How far the second progress is ahead of the first
+    private static final int SECOND_PROGRESS_OFFSET = MAX_PROGRESS / 5;
+
+    private static final long OVERLAY_UPDATE_INTERVAL_MS = 500;
+    private static final long AUTO_SCROLL_INTERVAL_MS = 1000;
+
+    private static final int[] STYLES = {CircleProgressDrawable.LINE, CircleProgressDrawable.SOLID,
+            CircleProgressDrawable.SOLID_LINE};
+    private static final int[] SHADERS = {CircleProgressDrawable.LINEAR, CircleProgressDrawable.RADIAL,
+            CircleProgressDrawable.SWEEP};
+    private static final int[] COLORS = {R.color.holo_blue_light, R.color.holo_green_light, R.color.holo_red_light,
+            R.color.holo_purple, R.color.holo_orange_light, R.color.holo_blue_bright};
+
+    private RecyclerView mRecyclerView;
+    private TextView mOverlay;
+    private FrameStats mFrameStats;
+
+    //A style of every combination of the style, the shader and the cap, the view type of the bars
+    private CircleProgressBarStyle[] mStyles;
+    private int mBarCount;
+    private boolean mAutoScroll;
+    private int mAutoScrollDirection = 1;
+
+    //The holders attached to the grid, the ones the animation updates
+    private final List<BarHolder> mAttachedHolders = new ArrayList<>();
+    private ValueAnimator mAnimator;
+
+    private final Runnable mOverlayUpdate = new Runnable() {
+        @Override
+        public void run() {
+            mOverlay.setText(getString(R.string.stress_overlay_format, mBarCount, mFrameStats.snapshot()));
+            mOverlay.postDelayed(this, OVERLAY_UPDATE_INTERVAL_MS);
+        }
+    };
+
+    private final Runnable mAutoScrollStep = new Runnable() {
+        @Override
+        public void run() {
+            if (!mRecyclerView.canScrollVertically(mAutoScrollDirection)) {
+                mAutoScrollDirection = -mAutoScrollDirection;
+            }
+            mRecyclerView.smoothScrollBy(0, mAutoScrollDirection * mRecyclerView.getHeight());
+            mRecyclerView.postDelayed(this, AUTO_SCROLL_INTERVAL_MS);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_stress);
+
+        mBarCount = getIntent().getIntExtra(EXTRA_BAR_COUNT, DEFAULT_BAR_COUNT);
+        int columns = getIntent().getIntExtra(EXTRA_COLUMNS, DEFAULT_COLUMNS);
+        long animationDurationMs = getIntent().getLongExtra(EXTRA_ANIMATION_DURATION_MS, DEFAULT_ANIMATION_DURATION_MS);
+        mAutoScroll = getIntent().getBooleanExtra(EXTRA_AUTO_SCROLL, false);
+
+        mStyles = buildStyles();
+        mFrameStats = new FrameStats(this);
+
+        mOverlay = (TextView) findViewById(R.id.stress_overlay);
+        mRecyclerView = (RecyclerView) findViewById(R.id.stress_grid);
+        mRecyclerView.setLayoutManager(new GridLayoutManager(this, columns));
+        mRecyclerView.setAdapter(new BarAdapter());
+        for (int viewType = 0; viewType < mStyles.length; viewType++) {
+            //a screen of bars of every type is kept for reuse
+            mRecyclerView.getRecycledViewPool().setMaxRecycledViews(viewType, columns * 2);
+        }
+
+        mAnimator = ValueAnimator.ofFloat(0.0f, 1.0f);
+        mAnimator.setDuration(animationDurationMs);
+        mAnimator.setRepeatCount(ValueAnimator.INFINITE);
+        mAnimator.setInterpolator(new LinearInterpolator());
+        mAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+            @Override
+            public void onAnimationUpdate(ValueAnimator animation) {
+                updateProgress(animation.getAnimatedFraction());
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        mFrameStats.reset();
+        mFrameStats.start();
+        mAnimator.start();
+        mOverlay.post(mOverlayUpdate);
+        if (mAutoScroll) {
+            mRecyclerView.postDelayed(mAutoScrollStep, AUTO_SCROLL_INTERVAL_MS);
+        }
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        mAnimator.cancel();
+        mFrameStats.stop();
+        mOverlay.removeCallbacks(mOverlayUpdate);
+        mRecyclerView.removeCallbacks(mAutoScrollStep);
+    }
+
+    public FrameStats getFrameStats() {
+        return mFrameStats;
+    }
+
+    /**
+     * Every bar runs through the progress once per animation, offset by its position
+     */
+    private void updateProgress(float fraction) {
+        for (int i = 0, size = mAttachedHolders.size(); i < size; i++) {
+            BarHolder holder = mAttachedHolders.get(i);
+            float phase = fraction + holder.mPhase;
+            int progress = (int) ((phase - (int) phase) * MAX_PROGRESS);
+            holder.mProgressBar.setProgressFirst(progress);
+            holder.mProgressBar.setProgressSecond(Math.min(MAX_PROGRESS, progress + SECOND_PROGRESS_OFFSET));
+        }
+    }
+
+    private CircleProgressBarStyle[] buildStyles() {
+        Paint.Cap[] caps = Paint.Cap.values();
+        CircleProgressBarStyle[] styles = new CircleProgressBarStyle[STYLES.length * SHADERS.length * caps.length];
+        float strokeWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 3, getResources().getDisplayMetrics());
+        int backgroundColor = ContextCompat.getColor(this, R.color.holo_darker_gray);
+
+        int index = 0;
+        for (int style : STYLES) {
+            for (int shader : SHADERS) {
+                for (Paint.Cap cap : caps) {
+                    int color = ContextCompat.getColor(this, COLORS[index % COLORS.length]);
+                    int secondColor = ContextCompat.getColor(this, COLORS[(index + 1) % COLORS.length]);
+                    styles[index++] = new CircleProgressBarStyle.Builder(this)
+                            .style(style)
+                            .shader(shader)
+                            .cap(cap)
+                            .strokeWidth(strokeWidth)
+                            .startColor(color)
+                            .endColor(secondColor)
+                            .secondStartColor(secondColor & 0x80ffffff)
+                            .secondEndColor(color & 0x80ffffff)
+                            .backgroundColor(backgroundColor)
+                            .build();
+                }
+            }
+        }
+        return styles;
+    }
+
+    private final class BarAdapter extends RecyclerView.Adapter<BarHolder> {
+        @Override
+        public int getItemViewType(int position) {
+            return position % mStyles.length;
+        }
+
+        @Override
+        public BarHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+            CircleProgressBar progressBar = new CircleProgressBar(parent.getContext(), mStyles[viewType]);
+            int size = parent.getWidth() / ((GridLayoutManager) mRecyclerView.getLayoutManager()).getSpanCount();
+            progressBar.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, size));
+            return new BarHolder(progressBar);
+        }
+
+        @Override
+        public void onBindViewHolder(BarHolder holder, int position) {
+            holder.mPhase = (float) position / getItemCount();
+        }
+
+        @Override
+        public int getItemCount() {
+            return mBarCount;
+        }
+
+        @Override
+        public void onViewAttachedToWindow(BarHolder holder) {
+            mAttachedHolders.add(holder);
+        }
+
+        @Override
+        public void onViewDetachedFromWindow(BarHolder holder) {
+            mAttachedHolders.remove(holder);
+        }
+    }
+
+    private static final class BarHolder extends RecyclerView.ViewHolder {
+        final CircleProgressBar mProgressBar;
+        //The offset of the animation of the bar, in fractions of the animation
+        float mPhase;
+
+        BarHolder(CircleProgressBar progressBar) {
+            super(progressBar);
+            mProgressBar = progressBar;
+        }
+    }
+}
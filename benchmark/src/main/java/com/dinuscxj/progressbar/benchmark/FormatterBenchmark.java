@@ -0,0 +1,49 @@
+package com.dinuscxj.progressbar.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dinuscxj.progressbar.core.PercentFormatter;
+
+/**
+ * The default progress text, compared with the String.format it replaced
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FormatterBenchmark {
+    private static final int MAX = 100;
+
+    private final char[] mBuffer = new char[16];
+    private int mProgress;
+
+    @Benchmark
+    public int formatIntoBuffer() {
+        mProgress = (mProgress + 1) % (MAX + 1);
+        return PercentFormatter.format(mProgress, MAX, mBuffer);
+    }
+
+    @Benchmark
+    public CharSequence formatPrecomputed() {
+        mProgress = (mProgress + 1) % (MAX + 1);
+        return PercentFormatter.format(mProgress, MAX);
+    }
+
+    @Benchmark
+    public CharSequence stringFormatBaseline() {
+        mProgress = (mProgress + 1) % (MAX + 1);
+        return String.format("%d%%", (int) ((float) mProgress / (float) MAX * 100));
+    }
+}
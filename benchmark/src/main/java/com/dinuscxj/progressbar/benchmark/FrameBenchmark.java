@@ -0,0 +1,69 @@
+package com.dinuscxj.progressbar.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dinuscxj.progressbar.core.PercentFormatter;
+import com.dinuscxj.progressbar.core.ProgressGeometry;
+
+/**
+ * The platform independent work of one progress update and its draw for each style: the invalidate
+ * quantization of the drawable, the line counts or the sweep angles of both progresses, and the progress text
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameBenchmark {
+    private static final int MAX = 100;
+    private static final int LINE_COUNT = 45;
+    private static final float RADIUS = 75.0f;
+
+    @Param({"line", "solid", "solid_line"})
+    public String style;
+
+    private final char[] mTextBuffer = new char[16];
+
+    private float mProgressFirst;
+    private float mProgressSecond;
+    private float mDrawnProgressFirst;
+    private float mDrawnProgressSecond;
+
+    @Benchmark
+    public int frame() {
+        //an animating ring, a fraction of a step per frame
+        mProgressFirst = (mProgressFirst + 0.37f) % MAX;
+        mProgressSecond = (mProgressFirst + 10.0f) % MAX;
+
+        boolean lines = "line".equals(style);
+        boolean changed = ProgressGeometry.isProgressChanged(lines, LINE_COUNT, RADIUS,
+                mProgressFirst, MAX, mDrawnProgressFirst, MAX)
+                || ProgressGeometry.isProgressChanged(lines, LINE_COUNT, RADIUS,
+                mProgressSecond, MAX, mDrawnProgressSecond, MAX);
+
+        int result = 0;
+        if (changed) {
+            result = lines ? ProgressGeometry.progressToLineCount(mProgressFirst, MAX, LINE_COUNT)
+                    + ProgressGeometry.progressToLineCount(mProgressSecond, MAX, LINE_COUNT)
+                    : (int) (ProgressGeometry.progressToDegree(mProgressFirst, MAX)
+                    + ProgressGeometry.progressToDegree(mProgressSecond, MAX));
+        }
+
+        mDrawnProgressFirst = mProgressFirst;
+        mDrawnProgressSecond = mProgressSecond;
+
+        return result + PercentFormatter.format(Math.round(mProgressFirst), MAX, mTextBuffer);
+    }
+}
@@ -0,0 +1,59 @@
+package com.dinuscxj.progressbar.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dinuscxj.progressbar.core.ProgressGeometry;
+
+/**
+ * The rebuild of the line endpoints, done on every size, line count and line width change, and the rotation
+ * of the sweep gradient, done on every size and stroke width change
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LineGeometryBenchmark {
+    private static final float CENTER = 75.0f;
+    private static final float RADIUS = 75.0f;
+    private static final float LINE_WIDTH = 12.0f;
+    private static final float STROKE_WIDTH = 3.0f;
+
+    @Param({"30", "45", "90"})
+    public int lineCount;
+
+    private float[] mPoints;
+    //Read from the state, constants would be folded
+    private float mStrokeWidth = STROKE_WIDTH;
+    private float mRadius = RADIUS;
+    private boolean mCompensateCap = true;
+
+    @Setup
+    public void setUp() {
+        mPoints = new float[lineCount * 4];
+    }
+
+    @Benchmark
+    public float[] computeLinePoints() {
+        ProgressGeometry.computeLinePoints(mPoints, lineCount, CENTER, CENTER, RADIUS, LINE_WIDTH);
+        return mPoints;
+    }
+
+    @Benchmark
+    public float sweepShaderRotation() {
+        return ProgressGeometry.sweepShaderRotation(mStrokeWidth, mRadius, mCompensateCap);
+    }
+}
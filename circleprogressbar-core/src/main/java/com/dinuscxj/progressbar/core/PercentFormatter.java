@@ -0,0 +1,46 @@
+package com.dinuscxj.progressbar.core;
+
+/**
+ * Formats the progress as "42%" without allocating, "0%" ... "100%" are precomputed
+ */
+public final class PercentFormatter {
+    private static final String DEFAULT_PATTERN = "%d%%";
+    private static final int MAX_PERCENT = 100;
+
+    //"0%" ... "100%"
+    private static final String[] PERCENT_TEXTS = new String[MAX_PERCENT + 1];
+
+    static {
+        for (int i = 0; i <= MAX_PERCENT; i++) {
+            PERCENT_TEXTS[i] = String.format(DEFAULT_PATTERN, i);
+        }
+    }
+
+    private PercentFormatter() {
+    }
+
+    public static int percent(int progress, int max) {
+        return (int) ((float) progress / (float) max * 100);
+    }
+
+    /**
+     * @return the precomputed text of the percent in [0, 100], otherwise a new formatted one
+     */
+    public static String format(int progress, int max) {
+        int percent = percent(progress, max);
+        if (percent >= 0 && percent <= MAX_PERCENT) {
+            return PERCENT_TEXTS[percent];
+        }
+        return String.format(DEFAULT_PATTERN, percent);
+    }
+
+    /**
+     * @return the count of chars written into the buffer, at most buffer.length
+     */
+    public static int format(int progress, int max, char[] buffer) {
+        String text = format(progress, max);
+        int length = Math.min(text.length(), buffer.length);
+        text.getChars(0, length, buffer, 0);
+        return length;
+    }
+}
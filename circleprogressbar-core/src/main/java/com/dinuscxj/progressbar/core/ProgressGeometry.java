@@ -0,0 +1,108 @@
+package com.dinuscxj.progressbar.core;
+
+/**
+ * The platform independent math of the progress ring: the line endpoints of the Line Style,
+ * the progress quantization and the rotation compensating the stroke cap of the sweep gradient.
+ */
+public final class ProgressGeometry {
+    public static final float MAX_DEGREE = 360.0f;
+
+    private ProgressGeometry() {
+    }
+
+    /**
+     * Compute the endpoints (startX, startY, stopX, stopY) of every line of the Line Style
+     *
+     * @param points the output, must hold at least lineCount * 4 floats
+     */
+    public static void computeLinePoints(float[] points, int lineCount, float centerX, float centerY,
+                                         float radius, float lineWidth) {
+        float unitDegrees = (float) (2.0f * Math.PI / lineCount);
+        float outerCircleRadius = radius;
+        float interCircleRadius = radius - lineWidth;
+
+        for (int i = 0; i < lineCount; i++) {
+            float rotateDegrees = i * -unitDegrees;
+            float cos = (float) Math.cos(rotateDegrees);
+            float sin = (float) Math.sin(rotateDegrees);
+
+            int index = i * 4;
+            points[index] = centerX + cos * interCircleRadius;
+            points[index + 1] = centerY - sin * interCircleRadius;
+            points[index + 2] = centerX + cos * outerCircleRadius;
+            points[index + 3] = centerY - sin * outerCircleRadius;
+        }
+    }
+
+    /**
+     * The level of detail of the Line Style: the lines are reduced until the gap between two neighbouring
+     * lines on the inner circle, where they are the closest, is at least minLineGap
+     *
+     * @param radius    the outer radius of the lines, see {@link #computeLinePoints}
+     * @param lineWidth the length of the lines, they run from radius - lineWidth to radius
+     * @return the count of the lines to draw, at most lineCount
+     */
+    public static int levelOfDetailLineCount(int lineCount, float radius, float lineWidth, float strokeWidth,
+                                             float minLineGap) {
+        float lineSpace = strokeWidth + minLineGap;
+        if (lineSpace <= 0.0f) {
+            return lineCount;
+        }
+        float interCircleRadius = Math.max(0.0f, radius - lineWidth);
+        return (int) Math.max(0, Math.min(lineCount, 2.0f * Math.PI * interCircleRadius / lineSpace));
+    }
+
+    /**
+     * @return the count of the lines covered by the progress in the Line Style
+     */
+    public static int progressToLineCount(float progress, int max, int lineCount) {
+        return (int) (progress / (float) max * lineCount);
+    }
+
+    /**
+     * @return the sweep angle of the progress in the Solid and Solid Line Style
+     */
+    public static float progressToDegree(float progress, int max) {
+        return MAX_DEGREE * progress / max;
+    }
+
+    /**
+     * @return whether the arcs of the two sweep angles differ by at least one pixel,
+     * NaN (max is 0) is always treated as changed
+     */
+    public static boolean isArcLengthChanged(float degree, float drawnDegree, float radius) {
+        if (degree == drawnDegree) {
+            return false;
+        }
+        //arc = radian * radius
+        return !(Math.abs(Math.toRadians(degree - drawnDegree)) * radius < 1.0f);
+    }
+
+    /**
+     * The invalidate quantization of a progress change: whether the progress would draw different pixels
+     * from the drawn one, a different line count in the Line Style, or an arc at least one pixel longer
+     * or shorter in the Solid and Solid Line Style
+     *
+     * @param lines whether the progress is drawn as the lines of the Line Style
+     */
+    public static boolean isProgressChanged(boolean lines, int lineCount, float radius, float progress, int max,
+                                            float drawnProgress, int drawnMax) {
+        if (lines) {
+            return progressToLineCount(progress, max, lineCount) != progressToLineCount(drawnProgress, drawnMax, lineCount);
+        }
+        return isArcLengthChanged(progressToDegree(progress, max), progressToDegree(drawnProgress, drawnMax), radius);
+    }
+
+    /**
+     * The sweep gradient starts at the angle 0, a round or square cap (or the Solid Style) reaches
+     * before it by the stroke width, so the gradient is rotated back to keep the start color at the cap
+     *
+     * @param compensateCap false for the Solid Line Style with a butt cap, which never reaches before 0
+     * @return the rotation of the local matrix of the sweep gradient
+     */
+    public static float sweepShaderRotation(float strokeWidth, float radius, boolean compensateCap) {
+        //arc = radian * radius
+        float radian = (float) (strokeWidth / Math.PI * 2.0f / radius);
+        return (float) (-(compensateCap ? Math.toDegrees(radian) : 0));
+    }
+}
@@ -0,0 +1,66 @@
+package com.dinuscxj.progressbar.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The geometry of the ring on a plain JVM: the line endpoints, the level of detail and the invalidate
+ * quantization.
+ */
+public class ProgressGeometryTest {
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void linesRunFromInnerToOuterCircle() {
+        float[] points = new float[4 * 4];
+        ProgressGeometry.computeLinePoints(points, 4, 100.0f, 100.0f, 50.0f, 10.0f);
+
+        //the first line points right, the next one down, they follow clockwise on the screen
+        assertEquals(140.0f, points[0], DELTA);
+        assertEquals(100.0f, points[1], DELTA);
+        assertEquals(150.0f, points[2], DELTA);
+        assertEquals(100.0f, points[3], DELTA);
+        assertEquals(100.0f, points[4], DELTA);
+        assertEquals(140.0f, points[5], DELTA);
+        assertEquals(100.0f, points[6], DELTA);
+        assertEquals(150.0f, points[7], DELTA);
+    }
+
+    @Test
+    public void levelOfDetailMeasuresTheGapOnTheInnerCircle() {
+        //the inner circle of radius 10 has room for 2 * PI * 10 / (2 + 2) = 15 lines, the outer one for 31
+        assertEquals(15, ProgressGeometry.levelOfDetailLineCount(45, 20.0f, 10.0f, 2.0f, 2.0f));
+    }
+
+    @Test
+    public void levelOfDetailKeepsTheLinesOfALargeRing() {
+        assertEquals(45, ProgressGeometry.levelOfDetailLineCount(45, 200.0f, 10.0f, 2.0f, 2.0f));
+    }
+
+    @Test
+    public void levelOfDetailDropsEveryLineWithoutInnerCircle() {
+        assertEquals(0, ProgressGeometry.levelOfDetailLineCount(45, 10.0f, 20.0f, 2.0f, 2.0f));
+    }
+
+    @Test
+    public void levelOfDetailWithoutSpaceKeepsTheLines() {
+        assertEquals(45, ProgressGeometry.levelOfDetailLineCount(45, 20.0f, 10.0f, 0.0f, 0.0f));
+    }
+
+    @Test
+    public void lineProgressChangesWithTheLineCount() {
+        //one line covers 100 / 45 progress
+        assertFalse(ProgressGeometry.isProgressChanged(true, 45, 50.0f, 10.0f, 100, 9.0f, 100));
+        assertTrue(ProgressGeometry.isProgressChanged(true, 45, 50.0f, 12.0f, 100, 10.0f, 100));
+    }
+
+    @Test
+    public void arcProgressChangesByOnePixel() {
+        //on the ring of radius 50, 0.1 of 1000 is an arc of 0.03 pixel, 1 of 100 one of 3.1 pixels
+        assertFalse(ProgressGeometry.isProgressChanged(false, 45, 50.0f, 50.1f, 1000, 50.0f, 1000));
+        assertTrue(ProgressGeometry.isProgressChanged(false, 45, 50.0f, 51.0f, 100, 50.0f, 100));
+    }
+}
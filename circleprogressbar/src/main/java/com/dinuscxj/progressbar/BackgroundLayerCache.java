@@ -0,0 +1,109 @@
+package com.dinuscxj.progressbar;
+
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+
+/**
+ * A process wide, byte budgeted LRU cache of the background layers, see
+ * {@link CircleProgressDrawable#setBackgroundLayerEnabled(boolean)}. A layer is keyed by the style, its
+ * generation and the size, so the drawables of the same style and size share one layer. The evicted layers
+ * are left to the garbage collector, a display list still being drawn may refer to them.
+ */
+public final class BackgroundLayerCache {
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private static final LruCache<Key, Bitmap> sCache = new LruCache<Key, Bitmap>(DEFAULT_MAX_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Bitmap layer) {
+            return layer.getByteCount();
+        }
+    };
+
+    //Reused for every look up and guarded by itself, never stored in the cache
+    private static final Key sLookupKey = new Key();
+
+    private BackgroundLayerCache() {
+    }
+
+    /**
+     * @param maxBytes the max bytes of the cached layers, 0 drops all of them
+     */
+    public static void setMaxBytes(int maxBytes) {
+        if (maxBytes <= 0) {
+            sCache.evictAll();
+        } else {
+            sCache.resize(maxBytes);
+        }
+    }
+
+    public static int maxBytes() {
+        return sCache.maxSize();
+    }
+
+    public static int sizeBytes() {
+        return sCache.size();
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    /**
+     * @return whether a layer of the size fits the budget, larger drawables draw the background directly
+     */
+    static boolean accepts(int width, int height) {
+        return width > 0 && height > 0 && (long) width * height * 4 <= sCache.maxSize() / 4;
+    }
+
+    static Bitmap get(Object style, int generation, int width, int height) {
+        Key lookupKey = sLookupKey;
+        synchronized (lookupKey) {
+            lookupKey.set(style, generation, width, height);
+            return sCache.get(lookupKey);
+        }
+    }
+
+    static void put(Object style, int generation, int width, int height, Bitmap layer) {
+        Key key = new Key();
+        key.set(style, generation, width, height);
+        sCache.put(key, layer);
+    }
+
+    private static final class Key {
+        Object style;
+        int generation;
+        int width;
+        int height;
+
+        void set(Object style, int generation, int width, int height) {
+            this.style = style;
+            this.generation = generation;
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return style == key.style
+                    && generation == key.generation
+                    && width == key.width
+                    && height == key.height;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(style);
+            result = 31 * result + generation;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            return result;
+        }
+    }
+}
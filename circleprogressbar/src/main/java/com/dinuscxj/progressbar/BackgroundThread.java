@@ -0,0 +1,41 @@
+package com.dinuscxj.progressbar;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * The shared background thread of the library, for the work that can be done ahead of drawing,
+ * like warming up {@link LineFrameCache} or precomputing the progress text layouts
+ */
+final class BackgroundThread {
+    private static Handler sHandler;
+    private static Handler sMainHandler;
+
+    private BackgroundThread() {
+    }
+
+    static void post(Runnable runnable) {
+        synchronized (BackgroundThread.class) {
+            if (sHandler == null) {
+                HandlerThread thread = new HandlerThread("CircleProgressBar", Process.THREAD_PRIORITY_BACKGROUND);
+                thread.start();
+                sHandler = new Handler(thread.getLooper());
+            }
+        }
+        sHandler.post(runnable);
+    }
+
+    /**
+     * Hand the result of a background work back to the main thread
+     */
+    static void postToMain(Runnable runnable) {
+        synchronized (BackgroundThread.class) {
+            if (sMainHandler == null) {
+                sMainHandler = new Handler(Looper.getMainLooper());
+            }
+        }
+        sMainHandler.post(runnable);
+    }
+}
@@ -1,500 +1,548 @@
 package com.dinuscxj.progressbar;
 
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.LinearGradient;
-import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.RadialGradient;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.Shader;
-import android.graphics.SweepGradient;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.support.annotation.IntDef;
-import android.text.TextPaint;
-import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.animation.LinearInterpolator;
 
-public class CircleProgressBar extends View {
-    private static final int DEFAULT_MAX = 100;
-    private static final float MAX_DEGREE = 360.0f;
-    private static final float LINEAR_START_DEGREE = 90.0f;
-
-    private static final int LINE = 0;
-    private static final int SOLID = 1;
-    private static final int SOLID_LINE = 2;
-
-    private static final int LINEAR = 0;
-    private static final int RADIAL = 1;
-    private static final int SWEEP = 2;
-
-    private static final int DEFAULT_START_DEGREE = -90;
-
-    private static final int DEFAULT_LINE_COUNT = 45;
-
-    private static final float DEFAULT_LINE_WIDTH = 4.0f;
-    private static final float DEFAULT_PROGRESS_TEXT_SIZE = 11.0f;
-    private static final float DEFAULT_PROGRESS_STROKE_WIDTH = 1.0f;
-
-    private static final String COLOR_FFF2A670 = "#fff2a670";
-    private static final String COLOR_FFD3D3D5 = "#ffe3e3e5";
-
-    private static final String COLOR_TRANSPARENT = "#00000000";
-
-    private final RectF mProgressFirstRectF = new RectF();
-    private final Rect mProgressFirstTextRect = new Rect();
-
-    private final Paint mProgressFirstPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private final Paint mProgressSecondPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-    private final Paint mProgressFirstBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+import java.util.concurrent.atomic.AtomicLong;
 
-    private final Paint mProgressFirstTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+import com.dinuscxj.progressbar.core.PercentFormatter;
 
-    private float mRadius;
-    private float mCenterX;
-    private float mCenterY;
-
-    private int mProgressFirst;
-    private int mProgressSecond;
-    private int mMax = DEFAULT_MAX;
-
-    //Only work well in the Line Style, represents the line count of the rings included
-    private int mLineCount;
-    //Only work well in the Line Style, Height of the line of the progress bar
-    private float mLineWidth;
-
-    //Stroke width of the progress of the progress bar
-    private float mProgressFirstStrokeWidth;
-
-    //Text size of the progress of the progress bar
-    private float mProgressFirstTextSize;
-
-    //Start color of the first progress of the progress bar
-    private int mProgressFirstFirstStartColor;
-    //End color of the first progress of the progress bar
-    private int mProgressFirstFirstEndColor;
-    //Color of the second progress value of the progress bar
-
-    private int mProgressFirstSecondStartColor;
-    //Color of the second progress value of the progress bar
-    private int mProgressFirstSecondEndColor;
-
-
-    private int mProgressFirstTextColor;
-    //Background color of the progress of the progress bar
-    private int mProgressFirstBackgroundColor;
-
-    //the rotate degree of the canvas, default is -90.
-    private int mStartDegree;
+/**
+ * A thin View host of {@link CircleProgressDrawable}, all the drawing is done by the drawable
+ */
+public class CircleProgressBar extends View {
+    private static final long DEFAULT_INDETERMINATE_DURATION_MS = 1000;
+    private static final float MAX_DEGREE = 360.0f;
 
-    // whether draw the background only outside the progress area or not
-    private boolean mDrawBackgroundOutsideProgress;
+    //mPendingProgress holds no progress
+    private static final long NO_PENDING_PROGRESS = Long.MIN_VALUE;
 
-    //Format the current progress value to the specified format
-    private ProgressFormatter mProgressFirstFormatter = new DefaultProgressFormatter();
+    private final CircleProgressDrawable mProgressDrawable;
 
-    @Retention(RetentionPolicy.SOURCE)
-    @IntDef({LINE, SOLID, SOLID_LINE})
-    private @interface Style {
-    }
+    //The latest progress posted from any thread and not drawn yet, the first in the high 32 bits, see postProgress
+    private final AtomicLong mPendingProgress = new AtomicLong(NO_PENDING_PROGRESS);
 
-    //The style of the progress color
-    @Style
-    private int mStyle;
+    //The spin of the indeterminate mode, created when it is first started, see setIndeterminate
+    private ValueAnimator mIndeterminateAnimator;
+    private long mIndeterminateDurationMs = DEFAULT_INDETERMINATE_DURATION_MS;
+    //Whether the view is attached and visible with its ancestors and its window, the drawable is hidden
+    //otherwise, so the progress changes neither invalidate nor animate, and the indeterminate spin is stopped
+    private boolean mProgressVisible;
 
-    @Retention(RetentionPolicy.SOURCE)
-    @IntDef({LINEAR, RADIAL, SWEEP})
-    private @interface ShaderMode {
-    }
+    //The rotation of the view before the spin started, restored when it stops
+    private float mIndeterminateBaseRotation;
+    //The layer type of the view before the spin started, restored when it stops
+    private int mIndeterminateBaseLayerType;
+    private boolean mIndeterminateSpinning;
 
-    //The Shader of mProgressFirstPaint
-    @ShaderMode
-    private int mShader;
-    //The Stroke Cap of mProgressFirstPaint and mProgressFirstBackgroundPaint
-    private Paint.Cap mCap;
+    //The intrinsic size of the drawable the last measure was done with, see onMeasure
+    private int mMeasuredIntrinsicSize = -1;
 
     public CircleProgressBar(Context context) {
-        this(context, null);
+        this(context, (AttributeSet) null);
     }
 
     public CircleProgressBar(Context context, AttributeSet attrs) {
         super(context, attrs);
-        initFromAttributes(context, attrs);
-        initPaint();
+        mProgressDrawable = CircleProgressBarStyle.fromAttributes(context, attrs).newDrawable();
+        //shown once attached, see updateProgressVisible
+        mProgressDrawable.setVisible(false, false);
+        mProgressDrawable.setCallback(this);
     }
 
     /**
-     * Basic data initialization
+     * Adopt a resolved style directly, no attribute is parsed
      */
-    @SuppressWarnings("ResourceType")
-    private void initFromAttributes(Context context, AttributeSet attrs) {
-        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.CircleProgressBar);
-
-        mLineCount = a.getInt(R.styleable.CircleProgressBar_line_count, DEFAULT_LINE_COUNT);
-
-        mStyle = a.getInt(R.styleable.CircleProgressBar_style, LINE);
-        mShader = a.getInt(R.styleable.CircleProgressBar_progress_shader, LINEAR);
-        mCap = a.hasValue(R.styleable.CircleProgressBar_progress_stroke_cap) ?
-                Paint.Cap.values()[a.getInt(R.styleable.CircleProgressBar_progress_stroke_cap, 0)] : Paint.Cap.BUTT;
-
-        mLineWidth = a.getDimensionPixelSize(R.styleable.CircleProgressBar_line_width, UnitUtils.dip2px(getContext(), DEFAULT_LINE_WIDTH));
-        mProgressFirstTextSize = a.getDimensionPixelSize(R.styleable.CircleProgressBar_progress_text_size, UnitUtils.dip2px(getContext(), DEFAULT_PROGRESS_TEXT_SIZE));
-        mProgressFirstStrokeWidth = a.getDimensionPixelSize(R.styleable.CircleProgressBar_progress_stroke_width, UnitUtils.dip2px(getContext(), DEFAULT_PROGRESS_STROKE_WIDTH));
-
-        mProgressFirstFirstStartColor = a.getColor(R.styleable.CircleProgressBar_progress_first_start_color, Color.parseColor(COLOR_FFF2A670));
-        mProgressFirstFirstEndColor = a.getColor(R.styleable.CircleProgressBar_progress_first_end_color, Color.parseColor(COLOR_FFF2A670));
-        mProgressFirstSecondStartColor = a.getColor(R.styleable.CircleProgressBar_progress_second_start_color,Color.parseColor(COLOR_TRANSPARENT));
-        mProgressFirstSecondEndColor = a.getColor(R.styleable.CircleProgressBar_progress_second_end_color,Color.parseColor(COLOR_TRANSPARENT));
-        mProgressFirstTextColor = a.getColor(R.styleable.CircleProgressBar_progress_text_color, Color.parseColor(COLOR_FFF2A670));
-        mProgressFirstBackgroundColor = a.getColor(R.styleable.CircleProgressBar_progress_background_color, Color.parseColor(COLOR_FFD3D3D5));
+    public CircleProgressBar(Context context, CircleProgressBarStyle progressStyle) {
+        super(context);
+        mProgressDrawable = progressStyle.newDrawable();
+        mProgressDrawable.setVisible(false, false);
+        mProgressDrawable.setCallback(this);
+    }
 
-        mStartDegree = a.getInt(R.styleable.CircleProgressBar_progress_start_degree, DEFAULT_START_DEGREE);
-        mDrawBackgroundOutsideProgress = a.getBoolean(R.styleable.CircleProgressBar_drawBackgroundOutsideProgress, false);
+    public CircleProgressDrawable getProgressDrawable() {
+        return mProgressDrawable;
+    }
 
-        a.recycle();
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mProgressDrawable || super.verifyDrawable(who);
     }
 
     /**
-     * Paint initialization
+     * wrap_content takes the intrinsic size of the drawable, the ring around the widest progress text
      */
-    private void initPaint() {
-        mProgressFirstTextPaint.setTextAlign(Paint.Align.CENTER);
-        mProgressFirstTextPaint.setTextSize(mProgressFirstTextSize);
-
-        mProgressFirstPaint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
-        mProgressFirstPaint.setStrokeWidth(mProgressFirstStrokeWidth);
-        mProgressFirstPaint.setColor(mProgressFirstFirstStartColor);
-        mProgressFirstPaint.setStrokeCap(mCap);
-        mProgressSecondPaint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
-        mProgressSecondPaint.setStrokeWidth(mProgressFirstStrokeWidth);
-        mProgressSecondPaint.setColor(mProgressFirstSecondStartColor);
-        mProgressSecondPaint.setStrokeCap(mCap);
-
-        mProgressFirstBackgroundPaint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
-        mProgressFirstBackgroundPaint.setStrokeWidth(mProgressFirstStrokeWidth);
-        mProgressFirstBackgroundPaint.setColor(mProgressFirstBackgroundColor);
-        mProgressFirstBackgroundPaint.setStrokeCap(mCap);
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int size = mProgressDrawable.getIntrinsicWidth();
+        mMeasuredIntrinsicSize = size;
+        setMeasuredDimension(resolveSize(Math.max(size, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(size, getSuggestedMinimumHeight()), heightMeasureSpec));
     }
 
     /**
-     * The progress bar color gradient,
-     * need to be invoked in the {@link #onSizeChanged(int, int, int, int)}
+     * Only the changes of the intrinsic size request a layout, the progress, the colors and the shaders
+     * just redraw, so updating the progress never reaches the layout pass
      */
-    private void updateProgressShader() {
-        if (mProgressFirstFirstStartColor != mProgressFirstFirstEndColor) {
-            Shader shader = null;
-            Shader shader2 = null;
-            switch (mShader) {
-                case LINEAR: {
-                    shader = new LinearGradient(mProgressFirstRectF.left, mProgressFirstRectF.top,
-                            mProgressFirstRectF.left, mProgressFirstRectF.bottom,
-                            mProgressFirstFirstStartColor, mProgressFirstFirstEndColor, Shader.TileMode.CLAMP);
-                    shader2 = new LinearGradient(mProgressFirstRectF.left, mProgressFirstRectF.top,
-                            mProgressFirstRectF.left, mProgressFirstRectF.bottom,
-                            mProgressFirstSecondStartColor, mProgressFirstSecondEndColor, Shader.TileMode.CLAMP);
-                    Matrix matrix = new Matrix();
-                    matrix.setRotate(LINEAR_START_DEGREE, mCenterX, mCenterY);
-                    shader.setLocalMatrix(matrix);
-                    break;
-                }
-                case RADIAL: {
-                    shader = new RadialGradient(mCenterX, mCenterY, mRadius,
-                            mProgressFirstFirstStartColor, mProgressFirstFirstEndColor, Shader.TileMode.CLAMP);
-                    shader2 = new RadialGradient(mCenterX, mCenterY, mRadius,
-                            mProgressFirstSecondStartColor, mProgressFirstSecondEndColor, Shader.TileMode.CLAMP);
-                    break;
-                }
-                case SWEEP: {
-                    //arc = radian * radius
-                    float radian = (float) (mProgressFirstStrokeWidth / Math.PI * 2.0f / mRadius);
-                    float rotateDegrees = (float) (
-                            -(mCap == Paint.Cap.BUTT && mStyle == SOLID_LINE ? 0 : Math.toDegrees(radian)));
-
-                    shader = new SweepGradient(mCenterX, mCenterY, new int[]{mProgressFirstFirstStartColor, mProgressFirstFirstEndColor},
-                            new float[]{0.0f, 1.0f});
-                    shader2 = new SweepGradient(mCenterX, mCenterY, new int[]{mProgressFirstSecondStartColor, mProgressFirstSecondEndColor},
-                            new float[]{0.0f, 1.0f});
-                    Matrix matrix = new Matrix();
-                    matrix.setRotate(rotateDegrees, mCenterX, mCenterY);
-                    shader.setLocalMatrix(matrix);
-                    break;
-                }
-                default:
-                    break;
-            }
-
-            mProgressFirstPaint.setShader(shader);
-            mProgressSecondPaint.setShader(shader2);
-        } else {
-            mProgressFirstPaint.setShader(null);
-            mProgressFirstPaint.setColor(mProgressFirstFirstStartColor);
-            mProgressSecondPaint.setShader(null);
-            mProgressSecondPaint.setColor(mProgressFirstSecondStartColor);
+    @Override
+    public void invalidateDrawable(Drawable drawable) {
+        super.invalidateDrawable(drawable);
+        if (drawable == mProgressDrawable && mProgressDrawable.consumeIntrinsicSizeChange()
+                && isIntrinsicSizeUsed() && mProgressDrawable.getIntrinsicWidth() != mMeasuredIntrinsicSize) {
+            requestLayout();
         }
     }
 
+    /**
+     * @return false if the layout params fix both dimensions, the intrinsic size can't change the size then
+     */
+    private boolean isIntrinsicSizeUsed() {
+        ViewGroup.LayoutParams params = getLayoutParams();
+        return params == null || params.width < 0 || params.height < 0;
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        applyPendingProgress();
+        mProgressDrawable.draw(canvas);
+    }
 
-        canvas.save();
-        canvas.rotate(mStartDegree, mCenterX, mCenterY);
-        drawProgress(canvas);
-        canvas.restore();
+    /**
+     * When the size of CircleProgressBar changed, need to re-adjust the drawing area
+     */
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mProgressDrawable.setBounds(0, 0, w, h);
+        //spin about the ring center
+        setPivotX(w / 2);
+        setPivotY(h / 2);
+    }
 
-        drawProgressText(canvas);
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateProgressVisible(isShown() && getWindowVisibility() == VISIBLE);
     }
 
-    private void drawProgressText(Canvas canvas) {
-        if (mProgressFirstFormatter == null) {
-            return;
-        }
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        updateProgressVisible(false);
+    }
 
-        CharSequence progressText = mProgressFirstFormatter.format(mProgressFirst, mMax);
+    @Override
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        updateProgressVisible(isVisible);
+    }
 
-        if (TextUtils.isEmpty(progressText)) {
-            return;
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        //onVisibilityAggregated is only dispatched since Nougat
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N && getWindowToken() != null) {
+            updateProgressVisible(isShown() && getWindowVisibility() == VISIBLE);
         }
+    }
 
-        mProgressFirstTextPaint.setTextSize(mProgressFirstTextSize);
-        mProgressFirstTextPaint.setColor(mProgressFirstTextColor);
-
-        mProgressFirstTextPaint.getTextBounds(String.valueOf(progressText), 0, progressText.length(), mProgressFirstTextRect);
-        canvas.drawText(progressText, 0, progressText.length(), mCenterX, mCenterY + mProgressFirstTextRect.height() / 2, mProgressFirstTextPaint);
-    }
-
-    private void drawProgress(Canvas canvas) {
-        switch (mStyle) {
-            case SOLID:
-                drawSolidProgress(canvas);
-                break;
-            case SOLID_LINE:
-                drawSolidLineProgress(canvas);
-                break;
-            case LINE:
-            default:
-                drawLineProgress(canvas);
-                break;
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N && getWindowToken() != null) {
+            updateProgressVisible(isShown() && visibility == VISIBLE);
         }
     }
 
     /**
-     * In the center of the drawing area as a reference point , rotate the canvas
+     * While hidden the progress changes are only set on the hidden drawable and the animations are stopped,
+     * showing the drawable again invalidates it, so the latest progress is drawn once the view is visible
      */
-    private void drawLineProgress(Canvas canvas) {
-        float unitDegrees = (float) (2.0f * Math.PI / mLineCount);
-        float outerCircleRadius = mRadius;
-        float interCircleRadius = mRadius - mLineWidth;
-
-        int progressLineCount = (int) ((float) mProgressFirst / (float) mMax * mLineCount);
-
-        int progressLintSecondCount = (int) ((float) mProgressSecond / (float) mMax * mLineCount);
-
-        for (int i = 0; i < mLineCount; i++) {
-            float rotateDegrees = i * -unitDegrees;
-
-            float startX = mCenterX + (float) Math.cos(rotateDegrees) * interCircleRadius;
-            float startY = mCenterY - (float) Math.sin(rotateDegrees) * interCircleRadius;
-
-            float stopX = mCenterX + (float) Math.cos(rotateDegrees) * outerCircleRadius;
-            float stopY = mCenterY - (float) Math.sin(rotateDegrees) * outerCircleRadius;
-
-            if (mDrawBackgroundOutsideProgress) {
-                if (i >= progressLineCount) {
-                    canvas.drawLine(startX, startY, stopX, stopY, mProgressFirstBackgroundPaint);
-                }
-            } else {
-                canvas.drawLine(startX, startY, stopX, stopY, mProgressFirstBackgroundPaint);
-            }
+    private void updateProgressVisible(boolean visible) {
+        //may be dispatched by the super constructor
+        if (mProgressDrawable == null || mProgressVisible == visible) {
+            return;
+        }
 
-            if(i < progressLintSecondCount){
-                canvas.drawLine(startX, startY, stopX, stopY, mProgressSecondPaint);
-            }
-            if (i < progressLineCount) {
-                canvas.drawLine(startX, startY, stopX, stopY, mProgressFirstPaint);
+        mProgressVisible = visible;
+        mProgressDrawable.setVisible(visible, false);
+        if (visible) {
+            if (isIndeterminate()) {
+                startIndeterminateAnimation();
             }
+        } else {
+            stopIndeterminateAnimation();
         }
     }
 
     /**
-     * Just draw arc
+     * Every progress write of the UI thread starts here, then goes to the drawable, hidden or not. The progress
+     * posted and not drawn yet is applied first, so it is merged with the write instead of overriding it in onDraw.
      */
-    private void drawSolidProgress(Canvas canvas) {
-        if (mDrawBackgroundOutsideProgress) {
-            float startAngle = MAX_DEGREE * mProgressFirst / mMax;
-            float sweepAngle = MAX_DEGREE - startAngle;
-            canvas.drawArc(mProgressFirstRectF, startAngle, sweepAngle, true, mProgressFirstBackgroundPaint);
-        } else {
-            canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE, true, mProgressFirstBackgroundPaint);
+    private void applyPendingProgress() {
+        long progress = mPendingProgress.getAndSet(NO_PENDING_PROGRESS);
+        if (progress != NO_PENDING_PROGRESS) {
+            mProgressDrawable.applyProgress((int) (progress >> 32), (int) progress);
         }
-        canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE * mProgressSecond / mMax, true, mProgressSecondPaint);
-        canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE * mProgressFirst / mMax, true, mProgressFirstPaint);
     }
 
     /**
-     * Just draw arc
+     * In the indeterminate mode the ring keeps spinning through the rotation of this view, so the ring is
+     * drawn once into a layer and every frame only changes a render property, onDraw isn't invoked again.
+     * The progress text isn't drawn, set the progress to choose the length of the spinning arc.
      */
-    private void drawSolidLineProgress(Canvas canvas) {
-        if (mDrawBackgroundOutsideProgress) {
-            float startAngle = MAX_DEGREE * mProgressFirst / mMax;
-            float sweepAngle = MAX_DEGREE - startAngle;
-            canvas.drawArc(mProgressFirstRectF, startAngle, sweepAngle, false, mProgressFirstBackgroundPaint);
+    public void setIndeterminate(boolean indeterminate) {
+        if (isIndeterminate() == indeterminate) {
+            return;
+        }
+        mProgressDrawable.setIndeterminate(indeterminate);
+        if (indeterminate) {
+            startIndeterminateAnimation();
         } else {
-            canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE, false, mProgressFirstBackgroundPaint);
+            stopIndeterminateAnimation();
         }
-        canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE * mProgressSecond / mMax, false, mProgressSecondPaint);
-        canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE * mProgressFirst / mMax, false, mProgressFirstPaint);
+    }
+
+    public boolean isIndeterminate() {
+        return mProgressDrawable.isIndeterminate();
     }
 
     /**
-     * When the size of CircleProgressBar changed, need to re-adjust the drawing area
+     * @param durationMs the duration of one turn of the indeterminate spin
      */
-    @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        super.onSizeChanged(w, h, oldw, oldh);
-        mCenterX = w / 2;
-        mCenterY = h / 2;
+    public void setIndeterminateDuration(long durationMs) {
+        mIndeterminateDurationMs = durationMs;
+        if (mIndeterminateAnimator != null) {
+            mIndeterminateAnimator.setDuration(durationMs);
+        }
+    }
 
-        mRadius = Math.min(mCenterX, mCenterY);
-        mProgressFirstRectF.top = mCenterY - mRadius;
-        mProgressFirstRectF.bottom = mCenterY + mRadius;
-        mProgressFirstRectF.left = mCenterX - mRadius;
-        mProgressFirstRectF.right = mCenterX + mRadius;
+    private void startIndeterminateAnimation() {
+        if (mIndeterminateSpinning || !mProgressVisible) {
+            return;
+        }
 
-        updateProgressShader();
+        if (mIndeterminateAnimator == null) {
+            mIndeterminateAnimator = ValueAnimator.ofFloat(0.0f, MAX_DEGREE);
+            mIndeterminateAnimator.setRepeatCount(ValueAnimator.INFINITE);
+            mIndeterminateAnimator.setInterpolator(new LinearInterpolator());
+            mIndeterminateAnimator.setDuration(mIndeterminateDurationMs);
+            mIndeterminateAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
+                @Override
+                public void onAnimationUpdate(ValueAnimator animation) {
+                    //the fraction avoids boxing the animated value every frame
+                    setRotation(mIndeterminateBaseRotation + animation.getAnimatedFraction() * MAX_DEGREE);
+                }
+            });
+        }
 
-        //Prevent the progress from clipping
-        mProgressFirstRectF.inset(mProgressFirstStrokeWidth / 2, mProgressFirstStrokeWidth / 2);
+        mIndeterminateSpinning = true;
+        mIndeterminateBaseRotation = getRotation();
+        mIndeterminateBaseLayerType = getLayerType();
+        if (mIndeterminateBaseLayerType == LAYER_TYPE_NONE) {
+            setLayerType(LAYER_TYPE_HARDWARE, null);
+        }
+        mIndeterminateAnimator.start();
+    }
+
+    private void stopIndeterminateAnimation() {
+        if (!mIndeterminateSpinning) {
+            return;
+        }
+
+        mIndeterminateSpinning = false;
+        mIndeterminateAnimator.cancel();
+        setRotation(mIndeterminateBaseRotation);
+        if (getLayerType() != mIndeterminateBaseLayerType) {
+            setLayerType(mIndeterminateBaseLayerType, null);
+        }
     }
 
     public void setProgressFormatter(ProgressFormatter progressFormatter) {
-        this.mProgressFirstFormatter = progressFormatter;
-        invalidate();
+        mProgressDrawable.setProgressFormatter(progressFormatter);
     }
 
     public void setProgressStrokeWidth(float progressStrokeWidth) {
-        this.mProgressFirstStrokeWidth = progressStrokeWidth;
-        mProgressFirstRectF.inset(mProgressFirstStrokeWidth / 2, mProgressFirstStrokeWidth / 2);
-        invalidate();
+        mProgressDrawable.setProgressStrokeWidth(progressStrokeWidth);
     }
 
     public void setProgressTextSize(float progressTextSize) {
-        this.mProgressFirstTextSize = progressTextSize;
-        invalidate();
+        mProgressDrawable.setProgressTextSize(progressTextSize);
     }
 
     public void setProgressStartColor(int progressStartColor) {
-        this.mProgressFirstFirstStartColor = progressStartColor;
-        updateProgressShader();
-        invalidate();
+        mProgressDrawable.setProgressStartColor(progressStartColor);
     }
 
     public void setProgressEndColor(int progressEndColor) {
-        this.mProgressFirstFirstEndColor = progressEndColor;
-        updateProgressShader();
-        invalidate();
+        mProgressDrawable.setProgressEndColor(progressEndColor);
     }
 
     public void setProgressTextColor(int progressTextColor) {
-        this.mProgressFirstTextColor = progressTextColor;
-        invalidate();
+        mProgressDrawable.setProgressTextColor(progressTextColor);
     }
 
     public void setProgressBackgroundColor(int progressBackgroundColor) {
-        this.mProgressFirstBackgroundColor = progressBackgroundColor;
-        mProgressFirstBackgroundPaint.setColor(mProgressFirstBackgroundColor);
-        invalidate();
+        mProgressDrawable.setProgressBackgroundColor(progressBackgroundColor);
     }
 
     public void setLineCount(int lineCount) {
-        this.mLineCount = lineCount;
-        invalidate();
+        mProgressDrawable.setLineCount(lineCount);
     }
 
     public void setLineWidth(float lineWidth) {
-        this.mLineWidth = lineWidth;
-        invalidate();
+        mProgressDrawable.setLineWidth(lineWidth);
     }
 
-    public void setStyle(@Style int style) {
-        this.mStyle = style;
-        mProgressFirstPaint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
-        mProgressFirstBackgroundPaint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
-        invalidate();
+    public void setStyle(@CircleProgressDrawable.Style int style) {
+        mProgressDrawable.setStyle(style);
     }
 
-    public void setShader(@ShaderMode int shader) {
-        mShader = shader;
-        updateProgressShader();
-        invalidate();
+    public void setShader(@CircleProgressDrawable.ShaderMode int shader) {
+        mProgressDrawable.setShader(shader);
     }
 
     public void setCap(Paint.Cap cap) {
-        mCap = cap;
-        mProgressFirstPaint.setStrokeCap(cap);
-        mProgressFirstBackgroundPaint.setStrokeCap(cap);
-        invalidate();
+        mProgressDrawable.setCap(cap);
     }
 
     public void setProgressFirst(int progress) {
-        this.mProgressFirst = progress;
-        invalidate();
+        applyPendingProgress();
+        mProgressDrawable.setProgressFirst(progress);
     }
 
     public void setProgressSecond(int progress) {
-        this.mProgressSecond = progress;
-        invalidate();
+        applyPendingProgress();
+        mProgressDrawable.setProgressSecond(progress);
     }
 
     public void setMax(int max) {
-        this.mMax = max;
-        invalidate();
+        applyPendingProgress();
+        mProgressDrawable.setMax(max);
+    }
+
+    /**
+     * Set both progresses and the max at once, invalidated at most once
+     */
+    public void setProgress(int first, int second, int max) {
+        applyPendingProgress();
+        mProgressDrawable.edit().progress(first, second, max).apply();
+    }
+
+    /**
+     * Set the progress from any thread without locking or allocating. Only the latest progress posted
+     * before the next frame is drawn, the ones in between are dropped, and a redraw is only posted for
+     * the first of them. A negative progress is posted as 0.
+     */
+    public void postProgress(int first, int second) {
+        long progress = ((long) Math.max(first, 0) << 32) | (Math.max(second, 0) & 0xFFFFFFFFL);
+        if (mPendingProgress.getAndSet(progress) == NO_PENDING_PROGRESS) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                postInvalidateOnAnimation();
+            } else {
+                postInvalidate();
+            }
+        }
+    }
+
+    /**
+     * @see CircleProgressDrawable#animateProgressTo(int, int, long, TimeInterpolator)
+     */
+    public void animateProgressTo(int first, int second, long durationMs, TimeInterpolator interpolator) {
+        applyPendingProgress();
+        mProgressDrawable.animateProgressTo(first, second, durationMs, interpolator);
+    }
+
+    public void cancelProgressAnimation() {
+        mProgressDrawable.cancelProgressAnimation();
+    }
+
+    public boolean isProgressAnimating() {
+        return mProgressDrawable.isProgressAnimating();
+    }
+
+    /**
+     * The progress posted and not drawn yet is merged into the editor
+     *
+     * @see CircleProgressDrawable#edit()
+     */
+    public CircleProgressDrawable.Editor edit() {
+        applyPendingProgress();
+        return mProgressDrawable.edit();
+    }
+
+    /**
+     * @see CircleProgressDrawable#setRenderMetrics(RenderMetrics)
+     */
+    public void setRenderMetrics(RenderMetrics renderMetrics) {
+        mProgressDrawable.setRenderMetrics(renderMetrics);
+    }
+
+    public RenderMetrics getRenderMetrics() {
+        return mProgressDrawable.getRenderMetrics();
     }
 
     public int getProgress() {
-        return mProgressFirst;
+        long progress = mPendingProgress.get();
+        return progress != NO_PENDING_PROGRESS ? (int) (progress >> 32) : mProgressDrawable.getProgress();
+    }
+
+    public int getProgressSecond() {
+        long progress = mPendingProgress.get();
+        return progress != NO_PENDING_PROGRESS ? (int) progress : mProgressDrawable.getProgressSecond();
     }
 
     public int getMax() {
-        return mMax;
+        return mProgressDrawable.getMax();
     }
 
     public int getStartDegree() {
-        return mStartDegree;
+        return mProgressDrawable.getStartDegree();
     }
 
     public void setStartDegree(int startDegree) {
-        this.mStartDegree = startDegree;
-        invalidate();
+        mProgressDrawable.setStartDegree(startDegree);
+    }
+
+    public boolean isBackgroundLayerEnabled() {
+        return mProgressDrawable.isBackgroundLayerEnabled();
+    }
+
+    /**
+     * @see CircleProgressDrawable#setBackgroundLayerEnabled(boolean)
+     */
+    public void setBackgroundLayerEnabled(boolean backgroundLayerEnabled) {
+        mProgressDrawable.setBackgroundLayerEnabled(backgroundLayerEnabled);
     }
 
     public boolean isDrawBackgroundOutsideProgress() {
-        return mDrawBackgroundOutsideProgress;
+        return mProgressDrawable.isDrawBackgroundOutsideProgress();
     }
 
     public void setDrawBackgroundOutsideProgress(boolean drawBackgroundOutsideProgress) {
-        this.mDrawBackgroundOutsideProgress = drawBackgroundOutsideProgress;
-        invalidate();
+        mProgressDrawable.setDrawBackgroundOutsideProgress(drawBackgroundOutsideProgress);
+    }
+
+    public boolean isOverdrawFree() {
+        return mProgressDrawable.isOverdrawFree();
+    }
+
+    /**
+     * @see CircleProgressDrawable#setOverdrawFree(boolean)
+     */
+    public void setOverdrawFree(boolean overdrawFree) {
+        mProgressDrawable.setOverdrawFree(overdrawFree);
+    }
+
+    /**
+     * @see CircleProgressDrawable#setSegments(float[], int[], int)
+     */
+    public void setSegments(float[] progress, int[] colors, int count) {
+        mProgressDrawable.setSegments(progress, colors, count);
+    }
+
+    /**
+     * @see CircleProgressDrawable#setRings(float[], float[], int[], int[], int[], int)
+     */
+    public void setRings(float[] insets, float[] strokeWidths, int[] startColors, int[] endColors,
+                         int[] backgroundColors, int count) {
+        mProgressDrawable.setRings(insets, strokeWidths, startColors, endColors, backgroundColors, count);
+    }
+
+    public int getRingCount() {
+        return mProgressDrawable.getRingCount();
+    }
+
+    public void setRingProgress(int index, float progress) {
+        mProgressDrawable.setRingProgress(index, progress);
+    }
+
+    /**
+     * @see CircleProgressDrawable#setRingProgress(float[])
+     */
+    public void setRingProgress(float[] progress) {
+        mProgressDrawable.setRingProgress(progress);
+    }
+
+    public float getRingProgress(int index) {
+        return mProgressDrawable.getRingProgress(index);
+    }
+
+    public boolean isFrameCacheEnabled() {
+        return mProgressDrawable.isFrameCacheEnabled();
     }
 
+    /**
+     * @see CircleProgressDrawable#setFrameCacheEnabled(boolean)
+     */
+    public void setFrameCacheEnabled(boolean frameCacheEnabled) {
+        mProgressDrawable.setFrameCacheEnabled(frameCacheEnabled);
+    }
+
+    /**
+     * @see CircleProgressDrawable#warmUpFrameCache()
+     */
+    public void warmUpFrameCache() {
+        mProgressDrawable.warmUpFrameCache();
+    }
+
+    /**
+     * @see CircleProgressDrawable#setLevelOfDetail(boolean, float, int)
+     */
+    public void setLevelOfDetail(boolean enabled, float minLineGap, int minLineCount) {
+        mProgressDrawable.setLevelOfDetail(enabled, minLineGap, minLineCount);
+    }
+
+    public boolean isLevelOfDetailEnabled() {
+        return mProgressDrawable.isLevelOfDetailEnabled();
+    }
+
+    /**
+     * @see CircleProgressDrawable#precomputeProgressText(int, int)
+     */
+    public void precomputeProgressText(int fromProgress, int toProgress) {
+        mProgressDrawable.precomputeProgressText(fromProgress, toProgress);
+    }
+
+    /**
+     * The progress text may be styled with spans, a Spanned text is drawn through a cached layout
+     */
     public interface ProgressFormatter {
         CharSequence format(int progress, int max);
     }
 
-    private static final class DefaultProgressFormatter implements ProgressFormatter {
-        private static final String DEFAULT_PATTERN = "%d%%";
+    /**
+     * A ProgressFormatter that writes the progress text into a buffer owned by the CircleProgressBar,
+     * so that drawing the text allocates nothing. The formatter must not write more than buffer.length chars.
+     */
+    public interface BufferedProgressFormatter extends ProgressFormatter {
+        /**
+         * @return the count of chars written into the buffer
+         */
+        int format(int progress, int max, char[] buffer);
+    }
 
+    static final class DefaultProgressFormatter implements BufferedProgressFormatter {
         @Override
         public CharSequence format(int progress, int max) {
-            return String.format(DEFAULT_PATTERN, (int) ((float) progress / (float) max * 100));
+            return PercentFormatter.format(progress, max);
+        }
+
+        @Override
+        public int format(int progress, int max, char[] buffer) {
+            return PercentFormatter.format(progress, max, buffer);
         }
     }
 
@@ -534,7 +582,7 @@ public class CircleProgressBar extends View {
         Parcelable superState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superState);
 
-        ss.progress = mProgressFirst;
+        ss.progress = getProgress();
 
         return ss;
     }
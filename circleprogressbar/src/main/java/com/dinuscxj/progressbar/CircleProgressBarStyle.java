@@ -0,0 +1,274 @@
+package com.dinuscxj.progressbar;
+
+import java.util.WeakHashMap;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.Paint;
+import android.support.annotation.StyleRes;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+import static com.dinuscxj.progressbar.CircleProgressDrawable.COLOR_FFD3D3D5;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.COLOR_FFF2A670;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.COLOR_TRANSPARENT;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_LINE_COUNT;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_LINE_WIDTH;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_LOD_MIN_LINE_COUNT;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_LOD_MIN_LINE_GAP;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_PROGRESS_STROKE_WIDTH;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_PROGRESS_TEXT_SIZE;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.DEFAULT_START_DEGREE;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.LINE;
+import static com.dinuscxj.progressbar.CircleProgressDrawable.LINEAR;
+
+/**
+ * The immutable style of a {@link CircleProgressBar}. A style resolved from a theme and a style resource
+ * is cached, so inflating many progress bars with the same style parses the attributes and configures
+ * the paints only once. All the progress bars adopting the same style share its paints until one of them
+ * changes its style.
+ */
+public final class CircleProgressBarStyle {
+    //Resolved styles by theme and style resource, 0 means no style resource
+    private static final WeakHashMap<Resources.Theme, SparseArray<CircleProgressBarStyle>> sStyles =
+            new WeakHashMap<>();
+
+    private final CircleProgressDrawable.ProgressState mState;
+
+    private CircleProgressBarStyle(CircleProgressDrawable.ProgressState state) {
+        mState = state;
+    }
+
+    /**
+     * @return the style resolved from the theme of the context and the style resource, cached by both
+     */
+    public static CircleProgressBarStyle obtain(Context context, @StyleRes int styleRes) {
+        Resources.Theme theme = context.getTheme();
+        synchronized (sStyles) {
+            SparseArray<CircleProgressBarStyle> styles = sStyles.get(theme);
+            if (styles == null) {
+                styles = new SparseArray<>();
+                sStyles.put(theme, styles);
+            }
+
+            CircleProgressBarStyle style = styles.get(styleRes);
+            if (style == null) {
+                style = new CircleProgressBarStyle(parse(context,
+                        theme.obtainStyledAttributes(null, R.styleable.CircleProgressBar, 0, styleRes)));
+                styles.put(styleRes, style);
+            }
+            return style;
+        }
+    }
+
+    /**
+     * Only the attributes set directly on the view need to be parsed, a view which is just given a style
+     * (or nothing) adopts the cached style
+     */
+    static CircleProgressBarStyle fromAttributes(Context context, AttributeSet attrs) {
+        if (attrs == null) {
+            return obtain(context, 0);
+        }
+
+        if (!hasProgressAttribute(attrs)) {
+            return obtain(context, attrs.getStyleAttribute());
+        }
+
+        return new CircleProgressBarStyle(parse(context, context.obtainStyledAttributes(attrs, R.styleable.CircleProgressBar)));
+    }
+
+    private static boolean hasProgressAttribute(AttributeSet attrs) {
+        int[] styleable = R.styleable.CircleProgressBar;
+        for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+            int nameResource = attrs.getAttributeNameResource(i);
+            for (int attr : styleable) {
+                if (attr == nameResource) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Basic data initialization, the TypedArray is recycled
+     */
+    @SuppressWarnings("ResourceType")
+    private static CircleProgressDrawable.ProgressState parse(Context context, TypedArray a) {
+        CircleProgressDrawable.ProgressState state = new CircleProgressDrawable.ProgressState();
+
+        state.mLineCount = a.getInt(R.styleable.CircleProgressBar_line_count, DEFAULT_LINE_COUNT);
+
+        state.mStyle = a.getInt(R.styleable.CircleProgressBar_style, LINE);
+        state.mShader = a.getInt(R.styleable.CircleProgressBar_progress_shader, LINEAR);
+        state.mCap = a.hasValue(R.styleable.CircleProgressBar_progress_stroke_cap) ?
+                Paint.Cap.values()[a.getInt(R.styleable.CircleProgressBar_progress_stroke_cap, 0)] : Paint.Cap.BUTT;
+
+        state.mLineWidth = a.getDimensionPixelSize(R.styleable.CircleProgressBar_line_width, UnitUtils.dip2px(context, DEFAULT_LINE_WIDTH));
+        state.mProgressFirstTextSize = a.getDimensionPixelSize(R.styleable.CircleProgressBar_progress_text_size, UnitUtils.dip2px(context, DEFAULT_PROGRESS_TEXT_SIZE));
+        state.mProgressFirstStrokeWidth = a.getDimensionPixelSize(R.styleable.CircleProgressBar_progress_stroke_width, UnitUtils.dip2px(context, DEFAULT_PROGRESS_STROKE_WIDTH));
+
+        state.mProgressFirstFirstStartColor = a.getColor(R.styleable.CircleProgressBar_progress_first_start_color, COLOR_FFF2A670);
+        state.mProgressFirstFirstEndColor = a.getColor(R.styleable.CircleProgressBar_progress_first_end_color, COLOR_FFF2A670);
+        state.mProgressFirstSecondStartColor = a.getColor(R.styleable.CircleProgressBar_progress_second_start_color, COLOR_TRANSPARENT);
+        state.mProgressFirstSecondEndColor = a.getColor(R.styleable.CircleProgressBar_progress_second_end_color, COLOR_TRANSPARENT);
+        state.mProgressFirstTextColor = a.getColor(R.styleable.CircleProgressBar_progress_text_color, COLOR_FFF2A670);
+        state.mProgressFirstBackgroundColor = a.getColor(R.styleable.CircleProgressBar_progress_background_color, COLOR_FFD3D3D5);
+
+        state.mStartDegree = a.getInt(R.styleable.CircleProgressBar_progress_start_degree, DEFAULT_START_DEGREE);
+        state.mDrawBackgroundOutsideProgress = a.getBoolean(R.styleable.CircleProgressBar_drawBackgroundOutsideProgress, false);
+        state.mBackgroundLayerEnabled = a.getBoolean(R.styleable.CircleProgressBar_progress_background_cache, false);
+        state.mOverdrawFree = a.getBoolean(R.styleable.CircleProgressBar_progress_overdraw_free, false);
+        state.mFrameCacheEnabled = a.getBoolean(R.styleable.CircleProgressBar_progress_frame_cache, false);
+
+        state.mLodEnabled = a.getBoolean(R.styleable.CircleProgressBar_lod_enabled, true);
+        state.mLodMinLineGap = a.getDimension(R.styleable.CircleProgressBar_lod_min_line_gap, UnitUtils.dip2px(context, DEFAULT_LOD_MIN_LINE_GAP));
+        state.mLodMinLineCount = a.getInt(R.styleable.CircleProgressBar_lod_min_line_count, DEFAULT_LOD_MIN_LINE_COUNT);
+
+        a.recycle();
+
+        state.updatePaint();
+        return state;
+    }
+
+    /**
+     * @return a drawable sharing the paints of this style, it copies the style on its first style change
+     */
+    public CircleProgressDrawable newDrawable() {
+        CircleProgressDrawable drawable = new CircleProgressDrawable(mState);
+        drawable.setCopyStateOnWrite(true);
+        return drawable;
+    }
+
+    public CircleProgressBar.ProgressFormatter getProgressFormatter() {
+        return mState.mProgressFirstFormatter;
+    }
+
+    public Builder buildUpon() {
+        return new Builder(new CircleProgressDrawable.ProgressState(mState));
+    }
+
+    /**
+     * Builds a style programmatically, starts from the default style of {@link CircleProgressBar}
+     */
+    public static final class Builder {
+        private final CircleProgressDrawable.ProgressState mState;
+
+        public Builder(Context context) {
+            this(new CircleProgressDrawable.ProgressState(context));
+        }
+
+        private Builder(CircleProgressDrawable.ProgressState state) {
+            mState = state;
+        }
+
+        public Builder lineCount(int lineCount) {
+            mState.mLineCount = lineCount;
+            return this;
+        }
+
+        public Builder lineWidth(float lineWidth) {
+            mState.mLineWidth = lineWidth;
+            return this;
+        }
+
+        public Builder strokeWidth(float strokeWidth) {
+            mState.mProgressFirstStrokeWidth = strokeWidth;
+            return this;
+        }
+
+        public Builder textSize(float textSize) {
+            mState.mProgressFirstTextSize = textSize;
+            return this;
+        }
+
+        public Builder startColor(int startColor) {
+            mState.mProgressFirstFirstStartColor = startColor;
+            return this;
+        }
+
+        public Builder endColor(int endColor) {
+            mState.mProgressFirstFirstEndColor = endColor;
+            return this;
+        }
+
+        public Builder secondStartColor(int secondStartColor) {
+            mState.mProgressFirstSecondStartColor = secondStartColor;
+            return this;
+        }
+
+        public Builder secondEndColor(int secondEndColor) {
+            mState.mProgressFirstSecondEndColor = secondEndColor;
+            return this;
+        }
+
+        public Builder textColor(int textColor) {
+            mState.mProgressFirstTextColor = textColor;
+            return this;
+        }
+
+        public Builder backgroundColor(int backgroundColor) {
+            mState.mProgressFirstBackgroundColor = backgroundColor;
+            return this;
+        }
+
+        public Builder startDegree(int startDegree) {
+            mState.mStartDegree = startDegree;
+            return this;
+        }
+
+        public Builder drawBackgroundOutsideProgress(boolean drawBackgroundOutsideProgress) {
+            mState.mDrawBackgroundOutsideProgress = drawBackgroundOutsideProgress;
+            return this;
+        }
+
+        public Builder backgroundLayerEnabled(boolean backgroundLayerEnabled) {
+            mState.mBackgroundLayerEnabled = backgroundLayerEnabled;
+            return this;
+        }
+
+        public Builder overdrawFree(boolean overdrawFree) {
+            mState.mOverdrawFree = overdrawFree;
+            return this;
+        }
+
+        public Builder frameCacheEnabled(boolean frameCacheEnabled) {
+            mState.mFrameCacheEnabled = frameCacheEnabled;
+            return this;
+        }
+
+        public Builder levelOfDetail(boolean enabled, float minLineGap, int minLineCount) {
+            mState.mLodEnabled = enabled;
+            mState.mLodMinLineGap = minLineGap;
+            mState.mLodMinLineCount = minLineCount;
+            return this;
+        }
+
+        public Builder style(@CircleProgressDrawable.Style int style) {
+            mState.mStyle = style;
+            return this;
+        }
+
+        public Builder shader(@CircleProgressDrawable.ShaderMode int shader) {
+            mState.mShader = shader;
+            return this;
+        }
+
+        public Builder cap(Paint.Cap cap) {
+            mState.mCap = cap;
+            return this;
+        }
+
+        public Builder progressFormatter(CircleProgressBar.ProgressFormatter progressFormatter) {
+            mState.mProgressFirstFormatter = progressFormatter;
+            return this;
+        }
+
+        public CircleProgressBarStyle build() {
+            CircleProgressDrawable.ProgressState state = new CircleProgressDrawable.ProgressState(mState);
+            state.updatePaint();
+            return new CircleProgressBarStyle(state);
+        }
+    }
+}
@@ -0,0 +1,2081 @@
+package com.dinuscxj.progressbar;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+import android.animation.TimeInterpolator;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.IntDef;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import com.dinuscxj.progressbar.core.ProgressGeometry;
+
+/**
+ * Draws the ring of {@link CircleProgressBar} without a View, so it can be used as a compound drawable,
+ * in an ImageView or in a flattened list row. The style and its paints live in a ConstantState which is
+ * shared by all the drawables created from {@link #getConstantState()}, call {@link #mutate()} before
+ * changing the style of a single drawable.
+ */
+public class CircleProgressDrawable extends Drawable {
+    public static final int LINE = 0;
+    public static final int SOLID = 1;
+    public static final int SOLID_LINE = 2;
+
+    public static final int LINEAR = 0;
+    public static final int RADIAL = 1;
+    public static final int SWEEP = 2;
+
+    static final int DEFAULT_MAX = 100;
+    private static final float MAX_DEGREE = ProgressGeometry.MAX_DEGREE;
+    private static final float LINEAR_START_DEGREE = 90.0f;
+
+    static final int DEFAULT_START_DEGREE = -90;
+
+    static final int DEFAULT_LINE_COUNT = 45;
+
+    static final float DEFAULT_LOD_MIN_LINE_GAP = 1.0f;
+    static final int DEFAULT_LOD_MIN_LINE_COUNT = 8;
+
+    static final float DEFAULT_LINE_WIDTH = 4.0f;
+    static final float DEFAULT_PROGRESS_TEXT_SIZE = 11.0f;
+    static final float DEFAULT_PROGRESS_STROKE_WIDTH = 1.0f;
+
+    static final int COLOR_FFF2A670 = 0xfff2a670;
+    static final int COLOR_FFD3D3D5 = 0xffe3e3e5;
+
+    static final int COLOR_TRANSPARENT = 0x00000000;
+
+    private static final int DEFAULT_PROGRESS_TEXT_BUFFER_SIZE = 16;
+
+    private static final long NANOS_PER_MS = 1000000L;
+
+    //Above this max only so many evenly spaced progress texts are measured for the intrinsic size
+    private static final int MAX_MEASURED_PROGRESS_TEXTS = 100;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({LINE, SOLID, SOLID_LINE})
+    public @interface Style {
+    }
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({LINEAR, RADIAL, SWEEP})
+    public @interface ShaderMode {
+    }
+
+    private ProgressState mState;
+    private boolean mMutated;
+    //Whether mutate() before the first style change, so a shared style is never changed through this drawable
+    private boolean mCopyStateOnWrite;
+
+    //The generation of mState the geometry below was built for
+    private int mGeometryGeneration = -1;
+
+    private final RectF mProgressFirstRectF = new RectF();
+    private final Rect mProgressFirstTextRect = new Rect();
+
+    private float mRadius;
+    private float mCenterX;
+    private float mCenterY;
+
+    //Only work well in the Line Style, the endpoints (startX, startY, stopX, stopY) of every line
+    private float[] mLinePoints = new float[0];
+
+    //The style and the line count actually drawn, reduced by the level of detail for the current radius
+    @Style
+    private int mDrawStyle;
+    private int mLineCount;
+
+    //The gradients depend on the bounds, so they are kept per drawable rather than in the shared paints
+    private Shader mProgressFirstShader;
+    private Shader mProgressSecondShader;
+
+    //The chars of the progress text, reused by every draw
+    private char[] mProgressTextBuffer = new char[DEFAULT_PROGRESS_TEXT_BUFFER_SIZE];
+    //The chars, text size and typeface of the last measured progress text, see mProgressFirstTextRect
+    private char[] mMeasuredText = new char[DEFAULT_PROGRESS_TEXT_BUFFER_SIZE];
+    private int mMeasuredTextLength = -1;
+    private float mMeasuredTextSize;
+    private Typeface mMeasuredTypeface;
+    //The formatted but not yet drawn progress text, null if mProgressTextBuffer holds the text
+    private CharSequence mProgressText;
+    //The layout of a styled progress text, created for the first one
+    private ProgressTextLayout mProgressTextLayout;
+
+    //The progress state of the last draw, the progress changes which are invisible compared to it skip the invalidate
+    private boolean mProgressDrawn;
+    private float mDrawnProgressFirst;
+    private float mDrawnProgressSecond;
+    private int mDrawnMax;
+    private int mDrawnProgressTextLength;
+
+    private int mProgressFirst;
+    private int mProgressSecond;
+    //The drawn progress, differs from mProgressFirst and mProgressSecond only while animating
+    private float mVisualProgressFirst;
+    private float mVisualProgressSecond;
+    private int mMax = DEFAULT_MAX;
+
+    //Renders the frames of LineFrameCache
+    private Canvas mFrameCanvas;
+    //The frame of LineFrameCache drawn last, held until another is drawn
+    private LineFrameCache.Frame mDrawnFrame;
+
+    //Renders the layers of BackgroundLayerCache
+    private Canvas mBackgroundLayerCanvas;
+
+    private int mAlpha = 0xFF;
+    private ColorFilter mColorFilter;
+    private Paint mLayerPaint;
+    //Reused by every saveLayer
+    private final RectF mLayerBounds = new RectF();
+
+    //The progress animation, see animateProgressTo
+    private final FrameCallbackCompat mProgressAnimationCallback = new FrameCallbackCompat() {
+        @Override
+        void doFrame(long frameTimeNanos) {
+            doProgressAnimationFrame(frameTimeNanos);
+        }
+    };
+    private boolean mAnimating;
+    private float mAnimationFromFirst;
+    private float mAnimationFromSecond;
+    private int mAnimationToFirst;
+    private int mAnimationToSecond;
+    private long mAnimationStartNanos;
+    private long mAnimationDurationNanos;
+    private TimeInterpolator mAnimationInterpolator;
+
+    //Configured like the progress paints of mState and owned by this drawable, they carry its shaders,
+    //the paints of mState are shared and never changed while drawing, see updateProgressPaints
+    private final Paint mFirstPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mSecondPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    //Configured like the paints of mState, stroked with the line width, they draw the arc replacing the lines
+    //of a small ring, see updateLevelOfDetailPaints
+    private Paint mLodFirstPaint;
+    private Paint mLodSecondPaint;
+    private Paint mLodBackgroundPaint;
+
+    //The progress and the color of every segment of the N-segment model, segment 0 is on top, see setSegments
+    private float[] mSegmentProgress = new float[0];
+    private int[] mSegmentColors = new int[0];
+    private int mSegmentCount;
+    //Configured like mProgressFirstPaint, the color is changed for every segment
+    private Paint mSegmentPaint;
+
+    //The concentric rings of the multi-ring mode, ring 0 is the outermost by default, see setRings
+    private float[] mRingInsets = new float[0];
+    private float[] mRingStrokeWidths = new float[0];
+    private int[] mRingStartColors = new int[0];
+    private int[] mRingEndColors = new int[0];
+    private int[] mRingBackgroundColors = new int[0];
+    private float[] mRingProgress = new float[0];
+    private int mRingCount;
+    //Built by the geometry pass for every ring: the bounds (left, top, right, bottom), the shader and the lines
+    private float[] mRingRects = new float[0];
+    private Shader[] mRingShaders = new Shader[0];
+    private float[][] mRingLinePoints = new float[0][];
+    private final RectF mRingRectF = new RectF();
+    //Configured like mProgressFirstPaint, the stroke width, the color and the shader are changed for every ring
+    private Paint mRingPaint;
+
+    //Whether the progress is unknown, the progress text isn't drawn, see setIndeterminate
+    private boolean mIndeterminate;
+
+    //The size fitting the ring around the widest progress text, -1 until computed, see getIntrinsicWidth
+    private int mIntrinsicSize = -1;
+    //Whether the intrinsic size was invalidated since the last consumeIntrinsicSizeChange
+    private boolean mIntrinsicSizeChanged;
+
+    //Reused by every edit()
+    private final Editor mEditor = new Editor();
+
+    //null unless the metrics are enabled, see setRenderMetrics
+    private RenderMetrics mRenderMetrics;
+    //The canvas draw calls of the current draw
+    private int mFrameDrawCalls;
+
+    /**
+     * Create a drawable with the same default style as {@link CircleProgressBar}
+     */
+    public CircleProgressDrawable(Context context) {
+        this(new ProgressState(context));
+    }
+
+    CircleProgressDrawable(ProgressState state) {
+        mState = state;
+    }
+
+    @Override
+    public ConstantState getConstantState() {
+        return mState;
+    }
+
+    @Override
+    public Drawable mutate() {
+        if (!mMutated && super.mutate() == this) {
+            mState = new ProgressState(mState);
+            mMutated = true;
+        }
+        return this;
+    }
+
+    void setCopyStateOnWrite(boolean copyStateOnWrite) {
+        mCopyStateOnWrite = copyStateOnWrite;
+    }
+
+    /**
+     * @return the state to write a style change into
+     */
+    private ProgressState writableState() {
+        if (mCopyStateOnWrite) {
+            mutate();
+        }
+        return mState;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (mAlpha != alpha) {
+            mAlpha = alpha;
+            invalidateFrame();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        if (mColorFilter != colorFilter) {
+            mColorFilter = colorFilter;
+            invalidateFrame();
+        }
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    /**
+     * The size of the ring whose inside fits the widest progress text, computed once and cached
+     * until the text size, the formatter, the max, the stroke width, the line width or the style changed
+     */
+    @Override
+    public int getIntrinsicWidth() {
+        if (mIntrinsicSize < 0) {
+            mIntrinsicSize = computeIntrinsicSize();
+        }
+        return mIntrinsicSize;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return getIntrinsicWidth();
+    }
+
+    /**
+     * @return whether the intrinsic size was invalidated since the last call, the progress, the colors
+     * and the shaders never invalidate it
+     */
+    boolean consumeIntrinsicSizeChange() {
+        boolean changed = mIntrinsicSizeChanged;
+        mIntrinsicSizeChanged = false;
+        return changed;
+    }
+
+    /**
+     * Need to be invoked when anything the intrinsic size depends on changed, before the invalidate
+     */
+    private void invalidateIntrinsicSize() {
+        mIntrinsicSize = -1;
+        mIntrinsicSizeChanged = true;
+    }
+
+    private int computeIntrinsicSize() {
+        ProgressState state = mState;
+        float ringWidth = state.mStyle == LINE ? state.mLineWidth : state.mProgressFirstStrokeWidth;
+
+        float textWidth = 0.0f;
+        CircleProgressBar.ProgressFormatter formatter = state.mProgressFirstFormatter;
+        if (formatter != null) {
+            int max = Math.max(mMax, 0);
+            int step = Math.max(1, max / MAX_MEASURED_PROGRESS_TEXTS);
+            for (int progress = 0; progress <= max; progress += step) {
+                textWidth = Math.max(textWidth, measureProgressTextWidth(formatter.format(progress, mMax)));
+            }
+            if (max % step != 0) {
+                textWidth = Math.max(textWidth, measureProgressTextWidth(formatter.format(max, mMax)));
+            }
+        }
+
+        //the rect of the text need to fit inside the ring
+        float textHeight = textWidth > 0.0f
+                ? state.mProgressFirstTextPaint.descent() - state.mProgressFirstTextPaint.ascent() : 0.0f;
+        float innerDiameter = (float) Math.hypot(textWidth, textHeight);
+        return (int) Math.ceil(innerDiameter + ringWidth * 2);
+    }
+
+    private float measureProgressTextWidth(CharSequence progressText) {
+        if (progressText == null || progressText.length() == 0) {
+            return 0.0f;
+        }
+        return Layout.getDesiredWidth(progressText, mState.mProgressFirstTextPaint);
+    }
+
+    /**
+     * Stop the animation when hidden, nothing is drawn anymore. While
+     * hidden the progress changes don't invalidate and don't animate, showing it again invalidates.
+     */
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        //Drawable keeps the visibility, its invalidateSelf is muted to go through invalidateFrame
+        Callback callback = getCallback();
+        setCallback(null);
+        boolean changed = super.setVisible(visible, restart);
+        setCallback(callback);
+        if (changed) {
+            invalidateFrame();
+        }
+        if (!visible) {
+            if (mAnimating) {
+                //jump to the end
+                mProgressAnimationCallback.removeFrameCallback();
+                mAnimationStartNanos = 0;
+                doProgressAnimationFrame(Long.MAX_VALUE);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * When the bounds changed, need to re-adjust the drawing area
+     */
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        updateGeometry();
+    }
+
+    private void updateGeometry() {
+        Rect bounds = getBounds();
+        mCenterX = bounds.left + bounds.width() / 2;
+        mCenterY = bounds.top + bounds.height() / 2;
+
+        mRadius = Math.min(bounds.width() / 2, bounds.height() / 2);
+        mProgressFirstRectF.top = mCenterY - mRadius;
+        mProgressFirstRectF.bottom = mCenterY + mRadius;
+        mProgressFirstRectF.left = mCenterX - mRadius;
+        mProgressFirstRectF.right = mCenterX + mRadius;
+
+        updateProgressShader();
+        updateLevelOfDetail();
+        updateProgressPaints();
+        updateLevelOfDetailPaints();
+        updateLinePoints();
+
+        if (isLevelOfDetailFallback()) {
+            //the arc replacing the lines runs through their middle
+            mProgressFirstRectF.inset(mState.mLineWidth / 2, mState.mLineWidth / 2);
+        } else {
+            //Prevent the progress from clipping
+            mProgressFirstRectF.inset(mState.mProgressFirstStrokeWidth / 2, mState.mProgressFirstStrokeWidth / 2);
+        }
+        updateRings();
+
+        mGeometryGeneration = mState.mGeneration;
+    }
+
+    /**
+     * The progress bar color gradient,
+     * need to be invoked in the {@link #updateGeometry()}
+     */
+    private void updateProgressShader() {
+        if (mRenderMetrics != null) {
+            mRenderMetrics.onShaderRebuild();
+        }
+
+        ProgressState state = mState;
+        if (state.mProgressFirstFirstStartColor != state.mProgressFirstFirstEndColor) {
+            Shader shader = null;
+            Shader shader2 = null;
+            switch (state.mShader) {
+                case LINEAR: {
+                    shader = obtainShader(LINEAR, state.mProgressFirstFirstStartColor, state.mProgressFirstFirstEndColor, LINEAR_START_DEGREE);
+                    shader2 = obtainShader(LINEAR, state.mProgressFirstSecondStartColor, state.mProgressFirstSecondEndColor, 0.0f);
+                    break;
+                }
+                case RADIAL: {
+                    shader = obtainShader(RADIAL, state.mProgressFirstFirstStartColor, state.mProgressFirstFirstEndColor, 0.0f);
+                    shader2 = obtainShader(RADIAL, state.mProgressFirstSecondStartColor, state.mProgressFirstSecondEndColor, 0.0f);
+                    break;
+                }
+                case SWEEP: {
+                    float rotateDegrees = ProgressGeometry.sweepShaderRotation(state.mProgressFirstStrokeWidth, mRadius,
+                            !(state.mCap == Paint.Cap.BUTT && state.mStyle == SOLID_LINE));
+
+                    shader = obtainShader(SWEEP, state.mProgressFirstFirstStartColor, state.mProgressFirstFirstEndColor, rotateDegrees);
+                    shader2 = obtainShader(SWEEP, state.mProgressFirstSecondStartColor, state.mProgressFirstSecondEndColor, 0.0f);
+                    break;
+                }
+                default:
+                    break;
+            }
+
+            mProgressFirstShader = shader;
+            mProgressSecondShader = shader2;
+        } else {
+            mProgressFirstShader = null;
+            mProgressSecondShader = null;
+        }
+    }
+
+    /**
+     * Shaders with the same mode, colors and geometry are shared by all the progress bars, see {@link ShaderCache}
+     */
+    private Shader obtainShader(@ShaderMode int mode, int startColor, int endColor, float rotateDegrees) {
+        return ShaderCache.obtain(mode, startColor, endColor,
+                mProgressFirstRectF.left, mProgressFirstRectF.top, mProgressFirstRectF.bottom,
+                mCenterX, mCenterY, mRadius, rotateDegrees);
+    }
+
+    /**
+     * The lines of a small ring are reduced until they can be told apart, and replaced by an arc of
+     * the Solid Line Style below the min line count, need to be invoked when the radius changed
+     */
+    private void updateLevelOfDetail() {
+        ProgressState state = mState;
+        mDrawStyle = state.mStyle;
+        mLineCount = state.mLineCount;
+        if (state.mStyle != LINE || !state.mLodEnabled) {
+            return;
+        }
+
+        int lineCount = ProgressGeometry.levelOfDetailLineCount(state.mLineCount, mRadius, state.mLineWidth,
+                state.mProgressFirstStrokeWidth, state.mLodMinLineGap);
+        if (lineCount < state.mLineCount && lineCount < state.mLodMinLineCount) {
+            mDrawStyle = SOLID_LINE;
+        } else {
+            mLineCount = lineCount;
+        }
+    }
+
+    /**
+     * @return whether the lines of the Line Style are replaced by an arc, see updateLevelOfDetail
+     */
+    private boolean isLevelOfDetailFallback() {
+        return mState.mStyle == LINE && mDrawStyle == SOLID_LINE;
+    }
+
+    /**
+     * Need to be invoked in the {@link #updateGeometry()}, the shaders are set by applyShaders
+     */
+    private void updateProgressPaints() {
+        mState.configureFirstPaint(mFirstPaint);
+        mState.configureSecondPaint(mSecondPaint);
+    }
+
+    /**
+     * The arc replacing the lines covers them, it is as wide as they are long, need to be invoked
+     * after updateLevelOfDetail
+     */
+    private void updateLevelOfDetailPaints() {
+        if (!isLevelOfDetailFallback()) {
+            return;
+        }
+        if (mLodFirstPaint == null) {
+            mLodFirstPaint = new Paint();
+            mLodSecondPaint = new Paint();
+            mLodBackgroundPaint = new Paint();
+        }
+        ProgressState state = mState;
+        mLodFirstPaint.set(state.mProgressFirstPaint);
+        mLodFirstPaint.setStrokeWidth(state.mLineWidth);
+        mLodSecondPaint.set(state.mProgressSecondPaint);
+        mLodSecondPaint.setStrokeWidth(state.mLineWidth);
+        mLodBackgroundPaint.set(state.mProgressFirstBackgroundPaint);
+        mLodBackgroundPaint.setStrokeWidth(state.mLineWidth);
+    }
+
+    private Paint firstPaint() {
+        return isLevelOfDetailFallback() ? mLodFirstPaint : mFirstPaint;
+    }
+
+    private Paint secondPaint() {
+        return isLevelOfDetailFallback() ? mLodSecondPaint : mSecondPaint;
+    }
+
+    private Paint backgroundPaint() {
+        return isLevelOfDetailFallback() ? mLodBackgroundPaint : mState.mProgressFirstBackgroundPaint;
+    }
+
+    /**
+     * Line endpoints only depend on the line count, the radius and the line width,
+     * need to be invoked when any of them changed
+     */
+    private void updateLinePoints() {
+        int lineCount = mLineCount;
+        if (mLinePoints.length != lineCount * 4) {
+            mLinePoints = new float[Math.max(0, lineCount) * 4];
+        }
+
+        ProgressGeometry.computeLinePoints(mLinePoints, lineCount, mCenterX, mCenterY, mRadius, mState.mLineWidth);
+    }
+
+    /**
+     * The bounds, the shader and the lines of every ring of the multi-ring mode, built in the same pass
+     * as the main ring, need to be invoked in the {@link #updateGeometry()}
+     */
+    private void updateRings() {
+        int ringCount = mRingCount;
+        if (ringCount == 0) {
+            return;
+        }
+        if (mRingShaders.length < ringCount) {
+            mRingRects = new float[ringCount * 4];
+            mRingShaders = new Shader[ringCount];
+            mRingLinePoints = new float[ringCount][];
+        }
+
+        ProgressState state = mState;
+        int lineCount = mLineCount;
+        for (int i = 0; i < ringCount; i++) {
+            float radius = Math.max(0.0f, mRadius - mRingInsets[i]);
+            float strokeWidth = mRingStrokeWidths[i];
+            float left = mCenterX - radius;
+            float top = mCenterY - radius;
+            float bottom = mCenterY + radius;
+
+            Shader shader = null;
+            int startColor = mRingStartColors[i];
+            int endColor = mRingEndColors[i];
+            if (startColor != endColor) {
+                switch (state.mShader) {
+                    case LINEAR:
+                        shader = ShaderCache.obtain(LINEAR, startColor, endColor, left, top, bottom,
+                                mCenterX, mCenterY, radius, LINEAR_START_DEGREE);
+                        break;
+                    case RADIAL:
+                        shader = ShaderCache.obtain(RADIAL, startColor, endColor, left, top, bottom,
+                                mCenterX, mCenterY, radius, 0.0f);
+                        break;
+                    case SWEEP:
+                        float rotateDegrees = ProgressGeometry.sweepShaderRotation(strokeWidth, radius,
+                                !(state.mCap == Paint.Cap.BUTT && state.mStyle == SOLID_LINE));
+                        shader = ShaderCache.obtain(SWEEP, startColor, endColor, left, top, bottom,
+                                mCenterX, mCenterY, radius, rotateDegrees);
+                        break;
+                    default:
+                        break;
+                }
+            }
+            mRingShaders[i] = shader;
+
+            if (mDrawStyle == LINE) {
+                float[] linePoints = mRingLinePoints[i];
+                if (linePoints == null || linePoints.length != lineCount * 4) {
+                    linePoints = new float[Math.max(0, lineCount) * 4];
+                    mRingLinePoints[i] = linePoints;
+                }
+                ProgressGeometry.computeLinePoints(linePoints, lineCount, mCenterX, mCenterY, radius, state.mLineWidth);
+            }
+
+            //Prevent the ring from clipping, the arc replacing the lines runs through their middle
+            float inset = isLevelOfDetailFallback() ? state.mLineWidth / 2 : strokeWidth / 2;
+            mRingRects[i * 4] = left + inset;
+            mRingRects[i * 4 + 1] = top + inset;
+            mRingRects[i * 4 + 2] = mCenterX + radius - inset;
+            mRingRects[i * 4 + 3] = bottom - inset;
+        }
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        RenderMetrics metrics = mRenderMetrics;
+        long startNanos = metrics == null ? 0 : System.nanoTime();
+        mFrameDrawCalls = 0;
+
+        if (mGeometryGeneration != mState.mGeneration) {
+            updateGeometry();
+        }
+
+        ProgressState state = mState;
+        applyShaders();
+
+        int saveCount = -1;
+        if (mAlpha != 0xFF || mColorFilter != null) {
+            if (mLayerPaint == null) {
+                mLayerPaint = new Paint();
+            }
+            mLayerPaint.setAlpha(mAlpha);
+            mLayerPaint.setColorFilter(mColorFilter);
+            saveCount = saveLayer(canvas);
+        }
+
+        beginTraceSection(metrics, "CircleProgressDrawable#drawProgress");
+        if (!drawCachedFrame(canvas)) {
+            releaseDrawnFrame();
+            drawRing(canvas, drawBackgroundLayer(canvas));
+        }
+        endTraceSection(metrics);
+
+        beginTraceSection(metrics, "CircleProgressDrawable#drawProgressText");
+        drawProgressText(canvas);
+        endTraceSection(metrics);
+
+        if (saveCount >= 0) {
+            canvas.restoreToCount(saveCount);
+        }
+
+        mProgressDrawn = true;
+        mDrawnProgressFirst = mVisualProgressFirst;
+        mDrawnProgressSecond = mVisualProgressSecond;
+        mDrawnMax = mMax;
+
+        if (metrics != null) {
+            metrics.onDraw(state.mStyle, System.nanoTime() - startNanos, mFrameDrawCalls);
+        }
+    }
+
+    /**
+     * Save a layer of the bounds composited with mLayerPaint, saveLayer(RectF, Paint) needs API 21
+     */
+    @SuppressWarnings("deprecation")
+    private int saveLayer(Canvas canvas) {
+        mLayerBounds.set(getBounds());
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return canvas.saveLayer(mLayerBounds, mLayerPaint);
+        }
+        return canvas.saveLayer(mLayerBounds, mLayerPaint, Canvas.ALL_SAVE_FLAG);
+    }
+
+    /**
+     * The shaders depend on the bounds, they are set on the paints of this drawable before drawing
+     */
+    private void applyShaders() {
+        firstPaint().setShader(mProgressFirstShader);
+        secondPaint().setShader(mProgressSecondShader);
+    }
+
+    /**
+     * Draw the background and the progress, rotated by the start degree
+     *
+     * @param backgroundDrawn whether the background is already drawn by the background layer
+     */
+    private void drawRing(Canvas canvas, boolean backgroundDrawn) {
+        canvas.save();
+        canvas.rotate(mState.mStartDegree, mCenterX, mCenterY);
+        if (mRingCount > 0) {
+            drawRings(canvas);
+        } else if (isDisjoint()) {
+            drawDisjointProgress(canvas);
+        } else {
+            if (!backgroundDrawn) {
+                drawProgressBackground(canvas);
+            }
+            drawProgress(canvas);
+        }
+        canvas.restore();
+    }
+
+    /**
+     * Draw the ring from {@link LineFrameCache}, the missing frame is rendered and cached first
+     *
+     * @return false if the frame cache is disabled or can't be used, the ring need to be drawn directly
+     */
+    private boolean drawCachedFrame(Canvas canvas) {
+        ProgressState state = mState;
+        if (!state.mFrameCacheEnabled || mDrawStyle != LINE || mSegmentCount > 0 || mRingCount > 0) {
+            return false;
+        }
+
+        Rect bounds = getBounds();
+        int width = bounds.width();
+        int height = bounds.height();
+        if (!LineFrameCache.accepts(width, height)) {
+            return false;
+        }
+
+        int firstLineCount = frameLineCount(mVisualProgressFirst);
+        int secondLineCount = frameLineCount(mVisualProgressSecond);
+        LineFrameCache.Frame frame = LineFrameCache.acquire(state, state.mGeneration, width, height,
+                firstLineCount, secondLineCount);
+        if (frame == null) {
+            frame = LineFrameCache.obtain(width, height);
+            renderFrame(frame.bitmap);
+            LineFrameCache.put(state, state.mGeneration, width, height, firstLineCount, secondLineCount, frame);
+        }
+        releaseDrawnFrame();
+        mDrawnFrame = frame;
+
+        canvas.drawBitmap(frame.bitmap, bounds.left, bounds.top, null);
+        mFrameDrawCalls++;
+        return true;
+    }
+
+    /**
+     * The frame drawn last can be reused once evicted, the ring is no longer drawn from it
+     */
+    private void releaseDrawnFrame() {
+        if (mDrawnFrame != null) {
+            LineFrameCache.release(mDrawnFrame);
+            mDrawnFrame = null;
+        }
+    }
+
+    private int frameLineCount(float progress) {
+        return Math.max(0, Math.min(progressToLineCount(progress, mMax), mLineCount));
+    }
+
+    /**
+     * Render the ring of the current progress into the frame, the bounds are moved to its origin
+     */
+    private void renderFrame(Bitmap frame) {
+        if (mFrameCanvas == null) {
+            mFrameCanvas = new Canvas();
+        }
+        Rect bounds = getBounds();
+        frame.eraseColor(Color.TRANSPARENT);
+        mFrameCanvas.setBitmap(frame);
+        mFrameCanvas.save();
+        mFrameCanvas.translate(-bounds.left, -bounds.top);
+        drawRing(mFrameCanvas, false);
+        mFrameCanvas.restore();
+        mFrameCanvas.setBitmap(null);
+    }
+
+    /**
+     * Render the frames of every first progress line count at the current second progress into
+     * {@link LineFrameCache} on a background thread, as many as half of the cache budget holds.
+     * Has no effect unless the frame cache is enabled in the Line Style and the bounds are set.
+     */
+    public void warmUpFrameCache() {
+        final ProgressState state = mState;
+        Rect bounds = getBounds();
+        final int width = bounds.width();
+        final int height = bounds.height();
+        if (!state.mFrameCacheEnabled || mDrawStyle != LINE || mSegmentCount > 0 || mRingCount > 0
+                || !LineFrameCache.accepts(width, height)) {
+            return;
+        }
+
+        //the paints of the style can't be used off the main thread, the renderer draws with a copy
+        final CircleProgressDrawable renderer = new CircleProgressDrawable(new ProgressState(state));
+        renderer.setBounds(bounds);
+        renderer.mMax = mMax;
+        renderer.mVisualProgressSecond = mVisualProgressSecond;
+        renderer.applyShaders();
+
+        final int generation = state.mGeneration;
+        final int secondLineCount = frameLineCount(mVisualProgressSecond);
+        final int styleLineCount = mLineCount;
+        final int lineCount = Math.min(styleLineCount, LineFrameCache.maxBytes() / 2 / (width * height * 4) - 1);
+        BackgroundThread.post(new Runnable() {
+            @Override
+            public void run() {
+                for (int firstLineCount = 0; firstLineCount <= lineCount; firstLineCount++) {
+                    if (LineFrameCache.contains(state, generation, width, height, firstLineCount, secondLineCount)) {
+                        continue;
+                    }
+                    //the middle of the progress range drawing firstLineCount lines
+                    renderer.mVisualProgressFirst = firstLineCount == styleLineCount ? renderer.mMax
+                            : (firstLineCount + 0.5f) * renderer.mMax / styleLineCount;
+                    LineFrameCache.Frame frame = LineFrameCache.obtain(width, height);
+                    renderer.renderFrame(frame.bitmap);
+                    LineFrameCache.put(state, generation, width, height, firstLineCount, secondLineCount, frame);
+                    LineFrameCache.release(frame);
+                }
+            }
+        });
+    }
+
+    /**
+     * The trace sections are only emitted while the render metrics are enabled
+     */
+    private static void beginTraceSection(RenderMetrics metrics, String sectionName) {
+        if (metrics != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    private static void endTraceSection(RenderMetrics metrics) {
+        if (metrics != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    private void drawProgressText(Canvas canvas) {
+        int length = mIndeterminate ? 0 : formatProgressText();
+        mDrawnProgressTextLength = Math.max(length, 0);
+        if (length <= 0) {
+            return;
+        }
+
+        measureProgressText(length);
+        if (mProgressText instanceof Spanned) {
+            drawProgressTextLayout(canvas, (Spanned) mProgressText);
+            mProgressText = null;
+            return;
+        }
+
+        float y = mCenterY + mProgressFirstTextRect.height() / 2;
+        if (mProgressText != null) {
+            canvas.drawText(mProgressText, 0, length, mCenterX, y, mState.mProgressFirstTextPaint);
+        } else {
+            canvas.drawText(mProgressTextBuffer, 0, length, mCenterX, y, mState.mProgressFirstTextPaint);
+        }
+        mFrameDrawCalls++;
+        mProgressText = null;
+    }
+
+    /**
+     * Draw a styled progress text through its cached layout, centered in the ring
+     */
+    private void drawProgressTextLayout(Canvas canvas, Spanned text) {
+        if (mProgressTextLayout == null) {
+            mProgressTextLayout = new ProgressTextLayout();
+        }
+        StaticLayout layout = mProgressTextLayout.obtain(text, mProgressFirst, mMax,
+                mState.mProgressFirstFormatter, mState.mProgressFirstTextPaint);
+
+        canvas.save();
+        canvas.translate(mCenterX - layout.getWidth() / 2.0f, mCenterY - layout.getHeight() / 2.0f);
+        layout.draw(canvas);
+        canvas.restore();
+        mFrameDrawCalls++;
+    }
+
+    /**
+     * Lay out the styled progress texts from fromProgress to toProgress on a background thread, so drawing
+     * them later doesn't need to. The progress formatter must be thread safe, and the precomputed layouts
+     * are dropped when the formatter, the max or the text style changed. Plain texts need no layout.
+     */
+    public void precomputeProgressText(int fromProgress, int toProgress) {
+        if (mProgressTextLayout == null) {
+            mProgressTextLayout = new ProgressTextLayout();
+        }
+        mProgressTextLayout.precompute(fromProgress, toProgress, mMax,
+                mState.mProgressFirstFormatter, mState.mProgressFirstTextPaint);
+    }
+
+    /**
+     * Format the current progress into mProgressTextBuffer (and mProgressText if the formatter isn't buffered)
+     *
+     * @return the length of the progress text, 0 if there is nothing to draw
+     */
+    private int formatProgressText() {
+        mProgressText = null;
+        CircleProgressBar.ProgressFormatter formatter = mState.mProgressFirstFormatter;
+        if (formatter == null) {
+            return 0;
+        }
+
+        if (mRenderMetrics != null) {
+            mRenderMetrics.onFormat();
+        }
+
+        if (formatter instanceof CircleProgressBar.BufferedProgressFormatter) {
+            return Math.min(((CircleProgressBar.BufferedProgressFormatter) formatter)
+                    .format(mProgressFirst, mMax, mProgressTextBuffer), mProgressTextBuffer.length);
+        }
+
+        mProgressText = formatter.format(mProgressFirst, mMax);
+        return mProgressText == null ? 0 : copyProgressText(mProgressText);
+    }
+
+    /**
+     * Copy the chars of the progress text into mProgressTextBuffer, the buffer only grows
+     */
+    private int copyProgressText(CharSequence progressText) {
+        int length = progressText.length();
+        if (mProgressTextBuffer.length < length) {
+            mProgressTextBuffer = new char[length];
+        }
+        for (int i = 0; i < length; i++) {
+            mProgressTextBuffer[i] = progressText.charAt(i);
+        }
+        return length;
+    }
+
+    /**
+     * Measure the first length chars of mProgressTextBuffer into mProgressFirstTextRect,
+     * skipped when the text, the text size and the typeface are the same as the last measure
+     */
+    private void measureProgressText(int length) {
+        Paint textPaint = mState.mProgressFirstTextPaint;
+        float textSize = textPaint.getTextSize();
+        Typeface typeface = textPaint.getTypeface();
+        if (length == mMeasuredTextLength && textSize == mMeasuredTextSize && typeface == mMeasuredTypeface) {
+            boolean same = true;
+            for (int i = 0; i < length; i++) {
+                if (mMeasuredText[i] != mProgressTextBuffer[i]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return;
+            }
+        }
+
+        if (mMeasuredText.length < length) {
+            mMeasuredText = new char[length];
+        }
+        System.arraycopy(mProgressTextBuffer, 0, mMeasuredText, 0, length);
+        mMeasuredTextLength = length;
+        mMeasuredTextSize = textSize;
+        mMeasuredTypeface = typeface;
+
+        textPaint.getTextBounds(mProgressTextBuffer, 0, length, mProgressFirstTextRect);
+    }
+
+    /**
+     * Draw the background layer from {@link BackgroundLayerCache}, the missing layer is rendered and cached first
+     *
+     * @return false if the background layer is disabled or can't be used, the background need to be drawn directly
+     */
+    private boolean drawBackgroundLayer(Canvas canvas) {
+        if (!mState.mBackgroundLayerEnabled || mState.mDrawBackgroundOutsideProgress || isDisjoint()
+                || mRingCount > 0) {
+            return false;
+        }
+
+        ProgressState state = mState;
+        Rect bounds = getBounds();
+        int width = bounds.width();
+        int height = bounds.height();
+        if (!BackgroundLayerCache.accepts(width, height)) {
+            return false;
+        }
+
+        Bitmap layer = BackgroundLayerCache.get(state, state.mGeneration, width, height);
+        if (layer == null) {
+            layer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            if (mBackgroundLayerCanvas == null) {
+                mBackgroundLayerCanvas = new Canvas();
+            }
+            mBackgroundLayerCanvas.setBitmap(layer);
+            mBackgroundLayerCanvas.save();
+            mBackgroundLayerCanvas.translate(-bounds.left, -bounds.top);
+            mBackgroundLayerCanvas.rotate(state.mStartDegree, mCenterX, mCenterY);
+            drawProgressBackground(mBackgroundLayerCanvas);
+            mBackgroundLayerCanvas.restore();
+            mBackgroundLayerCanvas.setBitmap(null);
+            BackgroundLayerCache.put(state, state.mGeneration, width, height, layer);
+        }
+
+        canvas.drawBitmap(layer, bounds.left, bounds.top, null);
+        mFrameDrawCalls++;
+        return true;
+    }
+
+    private void drawProgressBackground(Canvas canvas) {
+        switch (mDrawStyle) {
+            case SOLID:
+                drawSolidProgressBackground(canvas, true);
+                break;
+            case SOLID_LINE:
+                drawSolidProgressBackground(canvas, false);
+                break;
+            case LINE:
+            default:
+                drawLineProgressBackground(canvas);
+                break;
+        }
+    }
+
+    private void drawProgress(Canvas canvas) {
+        switch (mDrawStyle) {
+            case SOLID:
+                drawSolidProgress(canvas);
+                break;
+            case SOLID_LINE:
+                drawSolidLineProgress(canvas);
+                break;
+            case LINE:
+            default:
+                drawLineProgress(canvas);
+                break;
+        }
+    }
+
+    private void drawLineProgressBackground(Canvas canvas) {
+        int lineCount = mLineCount;
+        if (mState.mDrawBackgroundOutsideProgress) {
+            int progressLineCount = progressToLineCount(mVisualProgressFirst, mMax);
+            int backgroundStart = Math.max(0, Math.min(progressLineCount, lineCount));
+            canvas.drawLines(mLinePoints, backgroundStart * 4, (lineCount - backgroundStart) * 4,
+                    mState.mProgressFirstBackgroundPaint);
+        } else {
+            canvas.drawLines(mLinePoints, 0, lineCount * 4, mState.mProgressFirstBackgroundPaint);
+        }
+        mFrameDrawCalls++;
+    }
+
+    private void drawSolidProgressBackground(Canvas canvas, boolean useCenter) {
+        if (mState.mDrawBackgroundOutsideProgress) {
+            float startAngle = progressToDegree(mVisualProgressFirst, mMax);
+            float sweepAngle = MAX_DEGREE - startAngle;
+            canvas.drawArc(mProgressFirstRectF, startAngle, sweepAngle, useCenter, backgroundPaint());
+        } else {
+            canvas.drawArc(mProgressFirstRectF, 0.0f, MAX_DEGREE, useCenter, backgroundPaint());
+        }
+        mFrameDrawCalls++;
+    }
+
+    /**
+     * In the center of the drawing area as a reference point , rotate the canvas
+     */
+    private void drawLineProgress(Canvas canvas) {
+        int progressLineCount = progressToLineCount(mVisualProgressFirst, mMax);
+
+        int progressLintSecondCount = progressToLineCount(mVisualProgressSecond, mMax);
+
+        drawLines(canvas, progressLintSecondCount, secondPaint());
+        drawLines(canvas, progressLineCount, firstPaint());
+    }
+
+    /**
+     * Draw the first lineCount lines of the ring in one call
+     */
+    private void drawLines(Canvas canvas, int lineCount, Paint paint) {
+        int count = Math.max(0, Math.min(lineCount, mLineCount));
+        if (count > 0) {
+            canvas.drawLines(mLinePoints, 0, count * 4, paint);
+            mFrameDrawCalls++;
+        }
+    }
+
+    /**
+     * Just draw arc
+     */
+    private void drawSolidProgress(Canvas canvas) {
+        canvas.drawArc(mProgressFirstRectF, 0.0f, progressToDegree(mVisualProgressSecond, mMax), true, secondPaint());
+        canvas.drawArc(mProgressFirstRectF, 0.0f, progressToDegree(mVisualProgressFirst, mMax), true, firstPaint());
+        mFrameDrawCalls += 2;
+    }
+
+    /**
+     * Just draw arc
+     */
+    private void drawSolidLineProgress(Canvas canvas) {
+        canvas.drawArc(mProgressFirstRectF, 0.0f, progressToDegree(mVisualProgressSecond, mMax), false, secondPaint());
+        canvas.drawArc(mProgressFirstRectF, 0.0f, progressToDegree(mVisualProgressFirst, mMax), false, firstPaint());
+        mFrameDrawCalls += 2;
+    }
+
+    private boolean isDisjoint() {
+        return mState.mOverdrawFree || mSegmentCount > 0;
+    }
+
+    /**
+     * Draw the layers as disjoint spans, each pixel (or line) is painted once: the segments (or the first
+     * and the second progress) from the top one, then the background after the largest of them
+     */
+    private void drawDisjointProgress(Canvas canvas) {
+        float covered = 0.0f;
+        if (mSegmentCount > 0) {
+            if (mSegmentPaint == null) {
+                mSegmentPaint = new Paint();
+            }
+            mSegmentPaint.set(firstPaint());
+            mSegmentPaint.setShader(null);
+            for (int i = 0; i < mSegmentCount; i++) {
+                mSegmentPaint.setColor(mSegmentColors[i]);
+                covered = drawSpan(canvas, covered, mSegmentProgress[i], mSegmentPaint);
+            }
+        } else {
+            covered = drawSpan(canvas, covered, mVisualProgressFirst, firstPaint());
+            covered = drawSpan(canvas, covered, mVisualProgressSecond, secondPaint());
+        }
+        drawSpan(canvas, covered, mMax, backgroundPaint());
+    }
+
+    /**
+     * Draw the part of the progress which isn't covered by the layers above, from covered to progress
+     *
+     * @return the progress covered by this and the layers above
+     */
+    private float drawSpan(Canvas canvas, float covered, float progress, Paint paint) {
+        progress = Math.min(progress, mMax);
+        if (progress <= covered) {
+            return covered;
+        }
+
+        if (mDrawStyle == LINE) {
+            int lineCount = mLineCount;
+            int start = Math.max(0, Math.min(progressToLineCount(covered, mMax), lineCount));
+            int end = Math.max(0, Math.min(progressToLineCount(progress, mMax), lineCount));
+            if (end > start) {
+                canvas.drawLines(mLinePoints, start * 4, (end - start) * 4, paint);
+                mFrameDrawCalls++;
+            }
+        } else {
+            float startAngle = progressToDegree(covered, mMax);
+            float sweepAngle = progressToDegree(progress, mMax) - startAngle;
+            if (sweepAngle > 0.0f) {
+                canvas.drawArc(mProgressFirstRectF, startAngle, sweepAngle, mDrawStyle == SOLID, paint);
+                mFrameDrawCalls++;
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Draw every ring of the multi-ring mode with the style, the shader mode and the cap of the first progress,
+     * each with its background. When the background is drawn outside the progress, or the progress is
+     * overdraw free, the background only covers the rest of the ring.
+     */
+    private void drawRings(Canvas canvas) {
+        ProgressState state = mState;
+        if (mRingPaint == null) {
+            mRingPaint = new Paint();
+        }
+        Paint paint = mRingPaint;
+        paint.set(state.mProgressFirstPaint);
+        boolean disjoint = state.mDrawBackgroundOutsideProgress || state.mOverdrawFree;
+
+        for (int i = 0; i < mRingCount; i++) {
+            float progress = Math.max(0.0f, Math.min(mRingProgress[i], mMax));
+            paint.setStrokeWidth(isLevelOfDetailFallback() ? state.mLineWidth : mRingStrokeWidths[i]);
+
+            if (mDrawStyle == LINE) {
+                float[] linePoints = mRingLinePoints[i];
+                int lineCount = mLineCount;
+                int progressLineCount = Math.max(0, Math.min(progressToLineCount(progress, mMax), lineCount));
+                int backgroundStart = disjoint ? progressLineCount : 0;
+                if (lineCount > backgroundStart) {
+                    paint.setShader(null);
+                    paint.setColor(mRingBackgroundColors[i]);
+                    canvas.drawLines(linePoints, backgroundStart * 4, (lineCount - backgroundStart) * 4, paint);
+                    mFrameDrawCalls++;
+                }
+                if (progressLineCount > 0) {
+                    paint.setShader(mRingShaders[i]);
+                    paint.setColor(mRingStartColors[i]);
+                    canvas.drawLines(linePoints, 0, progressLineCount * 4, paint);
+                    mFrameDrawCalls++;
+                }
+            } else {
+                boolean useCenter = mDrawStyle == SOLID;
+                RectF rect = mRingRectF;
+                rect.set(mRingRects[i * 4], mRingRects[i * 4 + 1], mRingRects[i * 4 + 2], mRingRects[i * 4 + 3]);
+                float degree = progressToDegree(progress, mMax);
+                float backgroundStart = disjoint ? degree : 0.0f;
+                if (backgroundStart < MAX_DEGREE) {
+                    paint.setShader(null);
+                    paint.setColor(mRingBackgroundColors[i]);
+                    canvas.drawArc(rect, backgroundStart, MAX_DEGREE - backgroundStart, useCenter, paint);
+                    mFrameDrawCalls++;
+                }
+                if (degree > 0.0f) {
+                    paint.setShader(mRingShaders[i]);
+                    paint.setColor(mRingStartColors[i]);
+                    canvas.drawArc(rect, 0.0f, degree, useCenter, paint);
+                    mFrameDrawCalls++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Invalidate only if the current progress would draw different pixels from the last draw:
+     * a different line count in the Line Style, an arc at least one pixel longer or shorter
+     * in the Solid and Solid Line Style, or a different progress text.
+     */
+    private void invalidateProgress() {
+        if (!isVisible()) {
+            //setVisible invalidates once visible again
+            return;
+        }
+        boolean invalidate = !mProgressDrawn || isProgressGeometryChanged() || isProgressTextChanged();
+        invalidateFrame(!invalidate);
+    }
+
+    private boolean isProgressGeometryChanged() {
+        boolean lines = mDrawStyle == LINE;
+        return ProgressGeometry.isProgressChanged(lines, mLineCount, mRadius,
+                mVisualProgressFirst, mMax, mDrawnProgressFirst, mDrawnMax)
+                || ProgressGeometry.isProgressChanged(lines, mLineCount, mRadius,
+                mVisualProgressSecond, mMax, mDrawnProgressSecond, mDrawnMax);
+    }
+
+    private boolean isProgressTextChanged() {
+        if (mIndeterminate) {
+            return false;
+        }
+        int length = formatProgressText();
+        mProgressText = null;
+        if (Math.max(length, 0) != mDrawnProgressTextLength) {
+            return true;
+        }
+        //the drawn progress text is the last measured one
+        for (int i = 0; i < length; i++) {
+            if (mProgressTextBuffer[i] != mMeasuredText[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int progressToLineCount(float progress, int max) {
+        return ProgressGeometry.progressToLineCount(progress, max, mLineCount);
+    }
+
+    private float progressToDegree(float progress, int max) {
+        return ProgressGeometry.progressToDegree(progress, max);
+    }
+
+    /**
+     * Need to be invoked after any field of mState changed, the paints are updated at once
+     * and the geometry of every drawable sharing mState is rebuilt before its next draw
+     */
+    private void invalidateState() {
+        mState.updatePaint();
+        mState.mGeneration++;
+        invalidateFrame();
+    }
+
+    private void invalidateFrame() {
+        invalidateFrame(false);
+    }
+
+    /**
+     * Every invalidate of the drawable goes through here, so the render metrics count all of them
+     *
+     * @param skipped whether the invalidate is dropped, nothing would be drawn differently
+     */
+    private void invalidateFrame(boolean skipped) {
+        if (mRenderMetrics != null) {
+            mRenderMetrics.onInvalidate(skipped);
+        }
+        if (!skipped) {
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * Record the rendering metrics of this drawable into the metrics, which may be shared by several drawables.
+     * Null disables the metrics and the trace sections, the default.
+     */
+    public void setRenderMetrics(RenderMetrics renderMetrics) {
+        mRenderMetrics = renderMetrics;
+    }
+
+    public RenderMetrics getRenderMetrics() {
+        return mRenderMetrics;
+    }
+
+    public void setProgressFormatter(CircleProgressBar.ProgressFormatter progressFormatter) {
+        if (mState.mProgressFirstFormatter == progressFormatter) {
+            return;
+        }
+        writableState().mProgressFirstFormatter = progressFormatter;
+        invalidateIntrinsicSize();
+        invalidateFrame();
+    }
+
+    public void setProgressStrokeWidth(float progressStrokeWidth) {
+        if (mState.mProgressFirstStrokeWidth == progressStrokeWidth) {
+            return;
+        }
+        writableState().mProgressFirstStrokeWidth = progressStrokeWidth;
+        invalidateIntrinsicSize();
+        invalidateState();
+    }
+
+    public void setProgressTextSize(float progressTextSize) {
+        if (mState.mProgressFirstTextSize == progressTextSize) {
+            return;
+        }
+        writableState().mProgressFirstTextSize = progressTextSize;
+        mState.updatePaint();
+        invalidateIntrinsicSize();
+        invalidateFrame();
+    }
+
+    public void setProgressStartColor(int progressStartColor) {
+        if (mState.mProgressFirstFirstStartColor == progressStartColor) {
+            return;
+        }
+        writableState().mProgressFirstFirstStartColor = progressStartColor;
+        invalidateState();
+    }
+
+    public void setProgressEndColor(int progressEndColor) {
+        if (mState.mProgressFirstFirstEndColor == progressEndColor) {
+            return;
+        }
+        writableState().mProgressFirstFirstEndColor = progressEndColor;
+        invalidateState();
+    }
+
+    public void setProgressTextColor(int progressTextColor) {
+        if (mState.mProgressFirstTextColor == progressTextColor) {
+            return;
+        }
+        writableState().mProgressFirstTextColor = progressTextColor;
+        mState.updatePaint();
+        invalidateFrame();
+    }
+
+    public void setProgressBackgroundColor(int progressBackgroundColor) {
+        if (mState.mProgressFirstBackgroundColor == progressBackgroundColor) {
+            return;
+        }
+        writableState().mProgressFirstBackgroundColor = progressBackgroundColor;
+        invalidateState();
+    }
+
+    public void setLineCount(int lineCount) {
+        if (mState.mLineCount == lineCount) {
+            return;
+        }
+        writableState().mLineCount = lineCount;
+        invalidateState();
+    }
+
+    public void setLineWidth(float lineWidth) {
+        if (mState.mLineWidth == lineWidth) {
+            return;
+        }
+        writableState().mLineWidth = lineWidth;
+        invalidateIntrinsicSize();
+        invalidateState();
+    }
+
+    public void setStyle(@Style int style) {
+        if (mState.mStyle == style) {
+            return;
+        }
+        writableState().mStyle = style;
+        invalidateIntrinsicSize();
+        invalidateState();
+    }
+
+    public void setShader(@ShaderMode int shader) {
+        if (mState.mShader == shader) {
+            return;
+        }
+        writableState().mShader = shader;
+        invalidateState();
+    }
+
+    public void setCap(Paint.Cap cap) {
+        if (mState.mCap == cap) {
+            return;
+        }
+        writableState().mCap = cap;
+        invalidateState();
+    }
+
+    /**
+     * Draw the background, the second and the first progress as disjoint spans instead of on top of each other,
+     * so no pixel is painted twice. The layers beneath a translucent progress no longer show through,
+     * and the spans join exactly only with the butt cap.
+     */
+    public void setOverdrawFree(boolean overdrawFree) {
+        if (mState.mOverdrawFree == overdrawFree) {
+            return;
+        }
+        writableState().mOverdrawFree = overdrawFree;
+        invalidateState();
+    }
+
+    public boolean isOverdrawFree() {
+        return mState.mOverdrawFree;
+    }
+
+    /**
+     * Replace the first and the second progress by count stacked segments of the same max, each with a solid
+     * color, drawn as disjoint spans: segment 0 is on top, and every following segment only shows beyond the
+     * segments before it. The arrays are copied, a count of 0 goes back to the first and the second progress.
+     */
+    public void setSegments(float[] progress, int[] colors, int count) {
+        if (count > 0 && (progress.length < count || colors.length < count)) {
+            throw new IllegalArgumentException("the arrays hold fewer than " + count + " segments");
+        }
+        if (mSegmentProgress.length < count) {
+            mSegmentProgress = new float[count];
+            mSegmentColors = new int[count];
+        }
+        if (count > 0) {
+            System.arraycopy(progress, 0, mSegmentProgress, 0, count);
+            System.arraycopy(colors, 0, mSegmentColors, 0, count);
+        }
+        mSegmentCount = Math.max(0, count);
+        invalidateFrame();
+    }
+
+    public int getSegmentCount() {
+        return mSegmentCount;
+    }
+
+    /**
+     * Draw count concentric rings instead of the first and the second progress, like a nested gauge. Ring i
+     * is inset from the bounds by insets[i], drawn with strokeWidths[i] (the line thickness in the Line Style),
+     * from startColors[i] to endColors[i] through the shader mode, over backgroundColors[i]. The style and the
+     * cap are the ones of the first progress. The arrays are copied, a count of 0 goes back to the single ring.
+     * The progress of every ring is 0 until set by {@link #setRingProgress(int, float)}.
+     */
+    public void setRings(float[] insets, float[] strokeWidths, int[] startColors, int[] endColors,
+                         int[] backgroundColors, int count) {
+        if (count > 0 && (insets.length < count || strokeWidths.length < count || startColors.length < count
+                || endColors.length < count || backgroundColors.length < count)) {
+            throw new IllegalArgumentException("the arrays hold fewer than " + count + " rings");
+        }
+        if (mRingInsets.length < count) {
+            mRingInsets = new float[count];
+            mRingStrokeWidths = new float[count];
+            mRingStartColors = new int[count];
+            mRingEndColors = new int[count];
+            mRingBackgroundColors = new int[count];
+            float[] ringProgress = new float[count];
+            System.arraycopy(mRingProgress, 0, ringProgress, 0, mRingProgress.length);
+            mRingProgress = ringProgress;
+        }
+        if (count > 0) {
+            System.arraycopy(insets, 0, mRingInsets, 0, count);
+            System.arraycopy(strokeWidths, 0, mRingStrokeWidths, 0, count);
+            System.arraycopy(startColors, 0, mRingStartColors, 0, count);
+            System.arraycopy(endColors, 0, mRingEndColors, 0, count);
+            System.arraycopy(backgroundColors, 0, mRingBackgroundColors, 0, count);
+        }
+        for (int i = mRingCount; i < count; i++) {
+            mRingProgress[i] = 0.0f;
+        }
+        mRingCount = Math.max(0, count);
+        //the rings are rebuilt by the next draw
+        mGeometryGeneration = -1;
+        invalidateFrame();
+    }
+
+    public int getRingCount() {
+        return mRingCount;
+    }
+
+    /**
+     * Set the progress of one ring, of the same max as the progress
+     */
+    public void setRingProgress(int index, float progress) {
+        checkRingIndex(index);
+        if (mRingProgress[index] == progress) {
+            return;
+        }
+        mRingProgress[index] = progress;
+        invalidateFrame();
+    }
+
+    /**
+     * Set the progress of every ring at once, with a single invalidate
+     */
+    public void setRingProgress(float[] progress) {
+        if (progress.length < mRingCount) {
+            throw new IllegalArgumentException("the array holds fewer than " + mRingCount + " rings");
+        }
+        boolean changed = false;
+        for (int i = 0; i < mRingCount; i++) {
+            if (mRingProgress[i] != progress[i]) {
+                mRingProgress[i] = progress[i];
+                changed = true;
+            }
+        }
+        if (changed) {
+            invalidateFrame();
+        }
+    }
+
+    public float getRingProgress(int index) {
+        checkRingIndex(index);
+        return mRingProgress[index];
+    }
+
+    private void checkRingIndex(int index) {
+        if (index < 0 || index >= mRingCount) {
+            throw new IndexOutOfBoundsException("no ring " + index);
+        }
+    }
+
+    /**
+     * Cache the rendered rings of the Line Style in {@link LineFrameCache}, keyed by the line counts of
+     * the progress, so redrawing a line count drawn before only draws a bitmap. Has no effect in the other styles.
+     */
+    public void setFrameCacheEnabled(boolean frameCacheEnabled) {
+        if (mState.mFrameCacheEnabled == frameCacheEnabled) {
+            return;
+        }
+        writableState().mFrameCacheEnabled = frameCacheEnabled;
+        invalidateFrame();
+    }
+
+    public boolean isFrameCacheEnabled() {
+        return mState.mFrameCacheEnabled;
+    }
+
+    /**
+     * Reduce the lines of the Line Style on a small ring until the gap between two lines is at least
+     * minLineGap pixels, and draw an arc instead once fewer than minLineCount lines would be left
+     */
+    public void setLevelOfDetail(boolean enabled, float minLineGap, int minLineCount) {
+        ProgressState state = mState;
+        if (state.mLodEnabled == enabled && state.mLodMinLineGap == minLineGap && state.mLodMinLineCount == minLineCount) {
+            return;
+        }
+        state = writableState();
+        state.mLodEnabled = enabled;
+        state.mLodMinLineGap = minLineGap;
+        state.mLodMinLineCount = minLineCount;
+        invalidateState();
+    }
+
+    public boolean isLevelOfDetailEnabled() {
+        return mState.mLodEnabled;
+    }
+
+    public void setStartDegree(int startDegree) {
+        if (mState.mStartDegree == startDegree) {
+            return;
+        }
+        writableState().mStartDegree = startDegree;
+        invalidateState();
+    }
+
+    public int getStartDegree() {
+        return mState.mStartDegree;
+    }
+
+    /**
+     * Cache the background of the progress into a bitmap which is only redrawn when the size or
+     * the style of the background changed, shared by the drawables of the same style and size in
+     * {@link BackgroundLayerCache}. It has no effect when draw the background only outside the progress.
+     */
+    public void setBackgroundLayerEnabled(boolean backgroundLayerEnabled) {
+        if (mState.mBackgroundLayerEnabled == backgroundLayerEnabled) {
+            return;
+        }
+        writableState().mBackgroundLayerEnabled = backgroundLayerEnabled;
+        invalidateFrame();
+    }
+
+    public boolean isBackgroundLayerEnabled() {
+        return mState.mBackgroundLayerEnabled;
+    }
+
+    public void setDrawBackgroundOutsideProgress(boolean drawBackgroundOutsideProgress) {
+        if (mState.mDrawBackgroundOutsideProgress == drawBackgroundOutsideProgress) {
+            return;
+        }
+        writableState().mDrawBackgroundOutsideProgress = drawBackgroundOutsideProgress;
+        invalidateState();
+    }
+
+    public boolean isDrawBackgroundOutsideProgress() {
+        return mState.mDrawBackgroundOutsideProgress;
+    }
+
+    public void setProgressFirst(int progress) {
+        cancelProgressAnimation();
+        if (mProgressFirst == progress && mVisualProgressFirst == progress) {
+            return;
+        }
+        mProgressFirst = progress;
+        mVisualProgressFirst = progress;
+        invalidateProgress();
+    }
+
+    public void setProgressSecond(int progress) {
+        cancelProgressAnimation();
+        if (mProgressSecond == progress && mVisualProgressSecond == progress) {
+            return;
+        }
+        mProgressSecond = progress;
+        mVisualProgressSecond = progress;
+        invalidateProgress();
+    }
+
+    /**
+     * Set the progress right before drawing it, so nothing is invalidated
+     */
+    void applyProgress(int first, int second) {
+        cancelProgressAnimation();
+        mProgressFirst = first;
+        mVisualProgressFirst = first;
+        mProgressSecond = second;
+        mVisualProgressSecond = second;
+    }
+
+    public void setMax(int max) {
+        if (mMax == max) {
+            return;
+        }
+        mMax = max;
+        //the widest progress text may differ
+        invalidateIntrinsicSize();
+        invalidateProgress();
+    }
+
+    /**
+     * An indeterminate progress draws the ring without the progress text, it is meant to be spun
+     * by its host, see {@link CircleProgressBar#setIndeterminate(boolean)}
+     */
+    public void setIndeterminate(boolean indeterminate) {
+        if (mIndeterminate == indeterminate) {
+            return;
+        }
+        mIndeterminate = indeterminate;
+        invalidateFrame();
+    }
+
+    public boolean isIndeterminate() {
+        return mIndeterminate;
+    }
+
+    public int getProgress() {
+        return mProgressFirst;
+    }
+
+    public int getProgressSecond() {
+        return mProgressSecond;
+    }
+
+    public int getMax() {
+        return mMax;
+    }
+
+    /**
+     * Smoothly animate the first and the second progress from the currently drawn values, driven by the
+     * Choreographer frame time. Calling it again while animating retargets the animation from where it is,
+     * and setting the progress directly cancels it. While hidden the progress is set at once.
+     *
+     * @param interpolator null means linear
+     */
+    public void animateProgressTo(int first, int second, long durationMs, TimeInterpolator interpolator) {
+        if (durationMs <= 0 || !isVisible()) {
+            setProgressFirst(first);
+            setProgressSecond(second);
+            return;
+        }
+
+        mAnimationFromFirst = mVisualProgressFirst;
+        mAnimationFromSecond = mVisualProgressSecond;
+        mAnimationToFirst = first;
+        mAnimationToSecond = second;
+        mAnimationDurationNanos = durationMs * NANOS_PER_MS;
+        mAnimationInterpolator = interpolator;
+        //starts at the next frame
+        mAnimationStartNanos = -1;
+
+        if (!mAnimating) {
+            mAnimating = true;
+            mProgressAnimationCallback.postFrameCallback();
+        }
+    }
+
+    public void cancelProgressAnimation() {
+        if (mAnimating) {
+            mAnimating = false;
+            mProgressAnimationCallback.removeFrameCallback();
+        }
+    }
+
+    public boolean isProgressAnimating() {
+        return mAnimating;
+    }
+
+    private void doProgressAnimationFrame(long frameTimeNanos) {
+        if (!mAnimating) {
+            return;
+        }
+
+        if (mAnimationStartNanos < 0) {
+            mAnimationStartNanos = frameTimeNanos;
+        }
+
+        float fraction = Math.min(1.0f, (float) (frameTimeNanos - mAnimationStartNanos) / mAnimationDurationNanos);
+        float value = mAnimationInterpolator == null ? fraction : mAnimationInterpolator.getInterpolation(fraction);
+
+        if (fraction >= 1.0f) {
+            mAnimating = false;
+            mVisualProgressFirst = mProgressFirst = mAnimationToFirst;
+            mVisualProgressSecond = mProgressSecond = mAnimationToSecond;
+        } else {
+            mVisualProgressFirst = mAnimationFromFirst + (mAnimationToFirst - mAnimationFromFirst) * value;
+            mVisualProgressSecond = mAnimationFromSecond + (mAnimationToSecond - mAnimationFromSecond) * value;
+            mProgressFirst = Math.round(mVisualProgressFirst);
+            mProgressSecond = Math.round(mVisualProgressSecond);
+            mProgressAnimationCallback.postFrameCallback();
+        }
+
+        invalidateProgress();
+    }
+
+    /**
+     * Begin a batched update, the paints and the shaders are rebuilt at most once and the drawable is
+     * invalidated at most once when {@link Editor#apply()} is invoked.
+     * The same Editor is returned by every call, so it must not be kept.
+     */
+    public Editor edit() {
+        mEditor.reset();
+        return mEditor;
+    }
+
+    /**
+     * Collects several property changes and applies them at once, see {@link #edit()}
+     */
+    public final class Editor {
+        private int mFirstStartColor;
+        private int mFirstEndColor;
+        private int mSecondStartColor;
+        private int mSecondEndColor;
+        private int mBackgroundColor;
+        private int mTextColor;
+        private float mTextSize;
+        @ShaderMode
+        private int mShaderMode;
+        @Style
+        private int mStyleMode;
+        private Paint.Cap mStrokeCap;
+        private int mFirst;
+        private int mSecond;
+        private int mMaxValue;
+
+        //whether progress() was invoked, the progress is applied even if equal to cancel the animation
+        private boolean mProgressChanged;
+
+        private Editor() {
+        }
+
+        private void reset() {
+            ProgressState state = mState;
+            mProgressChanged = false;
+            mFirstStartColor = state.mProgressFirstFirstStartColor;
+            mFirstEndColor = state.mProgressFirstFirstEndColor;
+            mSecondStartColor = state.mProgressFirstSecondStartColor;
+            mSecondEndColor = state.mProgressFirstSecondEndColor;
+            mBackgroundColor = state.mProgressFirstBackgroundColor;
+            mTextColor = state.mProgressFirstTextColor;
+            mTextSize = state.mProgressFirstTextSize;
+            mShaderMode = state.mShader;
+            mStyleMode = state.mStyle;
+            mStrokeCap = state.mCap;
+            mFirst = mProgressFirst;
+            mSecond = mProgressSecond;
+            mMaxValue = mMax;
+        }
+
+        public Editor startColor(int startColor) {
+            mFirstStartColor = startColor;
+            return this;
+        }
+
+        public Editor endColor(int endColor) {
+            mFirstEndColor = endColor;
+            return this;
+        }
+
+        public Editor secondStartColor(int secondStartColor) {
+            mSecondStartColor = secondStartColor;
+            return this;
+        }
+
+        public Editor secondEndColor(int secondEndColor) {
+            mSecondEndColor = secondEndColor;
+            return this;
+        }
+
+        public Editor backgroundColor(int backgroundColor) {
+            mBackgroundColor = backgroundColor;
+            return this;
+        }
+
+        public Editor textColor(int textColor) {
+            mTextColor = textColor;
+            return this;
+        }
+
+        public Editor textSize(float textSize) {
+            mTextSize = textSize;
+            return this;
+        }
+
+        public Editor shader(@ShaderMode int shader) {
+            mShaderMode = shader;
+            return this;
+        }
+
+        public Editor style(@Style int style) {
+            mStyleMode = style;
+            return this;
+        }
+
+        public Editor cap(Paint.Cap cap) {
+            mStrokeCap = cap;
+            return this;
+        }
+
+        public Editor progress(int first, int second, int max) {
+            mFirst = first;
+            mSecond = second;
+            mMaxValue = max;
+            mProgressChanged = true;
+            return this;
+        }
+
+        /**
+         * Apply all the changes, unchanged values are ignored
+         */
+        public void apply() {
+            ProgressState state = mState;
+            boolean styleChanged = false;
+            boolean progressChanged = false;
+            boolean sizeChanged = mTextSize != state.mProgressFirstTextSize || mStyleMode != state.mStyle
+                    || (mProgressChanged && mMaxValue != mMax);
+
+            if (mFirstStartColor != state.mProgressFirstFirstStartColor || mFirstEndColor != state.mProgressFirstFirstEndColor
+                    || mSecondStartColor != state.mProgressFirstSecondStartColor || mSecondEndColor != state.mProgressFirstSecondEndColor
+                    || mBackgroundColor != state.mProgressFirstBackgroundColor
+                    || mTextColor != state.mProgressFirstTextColor || mTextSize != state.mProgressFirstTextSize
+                    || mShaderMode != state.mShader || mStyleMode != state.mStyle || mStrokeCap != state.mCap) {
+                state = writableState();
+                state.mProgressFirstFirstStartColor = mFirstStartColor;
+                state.mProgressFirstFirstEndColor = mFirstEndColor;
+                state.mProgressFirstSecondStartColor = mSecondStartColor;
+                state.mProgressFirstSecondEndColor = mSecondEndColor;
+                state.mProgressFirstBackgroundColor = mBackgroundColor;
+                state.mProgressFirstTextColor = mTextColor;
+                state.mProgressFirstTextSize = mTextSize;
+                state.mShader = mShaderMode;
+                state.mStyle = mStyleMode;
+                state.mCap = mStrokeCap;
+                styleChanged = true;
+            }
+
+            if (mProgressChanged) {
+                cancelProgressAnimation();
+                if (mFirst != mProgressFirst || mSecond != mProgressSecond || mMaxValue != mMax
+                        || mVisualProgressFirst != mFirst || mVisualProgressSecond != mSecond) {
+                    mProgressFirst = mFirst;
+                    mProgressSecond = mSecond;
+                    mMax = mMaxValue;
+                    mVisualProgressFirst = mFirst;
+                    mVisualProgressSecond = mSecond;
+                    progressChanged = true;
+                }
+            }
+            mProgressChanged = false;
+
+            if (sizeChanged) {
+                invalidateIntrinsicSize();
+            }
+            if (styleChanged) {
+                invalidateState();
+            } else if (progressChanged) {
+                invalidateProgress();
+            }
+        }
+    }
+
+    /**
+     * The style of the ring and the paints configured for it, shared by all the drawables
+     * created from the same ConstantState
+     */
+    static final class ProgressState extends ConstantState {
+        final Paint mProgressFirstPaint;
+        final Paint mProgressSecondPaint;
+        final Paint mProgressFirstBackgroundPaint;
+
+        final TextPaint mProgressFirstTextPaint;
+
+        //Increased whenever the style changed, see invalidateState()
+        int mGeneration;
+
+        //Only work well in the Line Style, represents the line count of the rings included
+        int mLineCount;
+        //Only work well in the Line Style, Height of the line of the progress bar
+        float mLineWidth;
+
+        //Stroke width of the progress of the progress bar
+        float mProgressFirstStrokeWidth;
+
+        //Text size of the progress of the progress bar
+        float mProgressFirstTextSize;
+
+        //Start color of the first progress of the progress bar
+        int mProgressFirstFirstStartColor;
+        //End color of the first progress of the progress bar
+        int mProgressFirstFirstEndColor;
+
+        //Start color of the second progress value of the progress bar
+        int mProgressFirstSecondStartColor;
+        //End color of the second progress value of the progress bar
+        int mProgressFirstSecondEndColor;
+
+        int mProgressFirstTextColor;
+        //Background color of the progress of the progress bar
+        int mProgressFirstBackgroundColor;
+
+        //the rotate degree of the canvas, default is -90.
+        int mStartDegree;
+
+        // whether draw the background only outside the progress area or not
+        boolean mDrawBackgroundOutsideProgress;
+
+        // whether cache the background into a bitmap or not, only work when not mDrawBackgroundOutsideProgress
+        boolean mBackgroundLayerEnabled;
+
+        // whether draw the background and the progress as disjoint spans or on top of each other
+        boolean mOverdrawFree;
+
+        // whether cache the rendered rings of the Line Style, see LineFrameCache
+        boolean mFrameCacheEnabled;
+
+        // whether reduce the lines of a small ring, see updateLevelOfDetail()
+        boolean mLodEnabled = true;
+        //The min gap in pixels between two lines on the inner circle, where they are the closest
+        float mLodMinLineGap;
+        //Below this line count the lines are replaced by an arc
+        int mLodMinLineCount = DEFAULT_LOD_MIN_LINE_COUNT;
+
+        //Format the current progress value to the specified format
+        CircleProgressBar.ProgressFormatter mProgressFirstFormatter = new CircleProgressBar.DefaultProgressFormatter();
+
+        //The style of the progress color
+        @Style
+        int mStyle;
+
+        //The Shader of mProgressFirstPaint
+        @ShaderMode
+        int mShader;
+        //The Stroke Cap of mProgressFirstPaint and mProgressFirstBackgroundPaint
+        Paint.Cap mCap = Paint.Cap.BUTT;
+
+        ProgressState() {
+            mProgressFirstPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mProgressSecondPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mProgressFirstBackgroundPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mProgressFirstTextPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        }
+
+        /**
+         * The default style of {@link CircleProgressBar}
+         */
+        ProgressState(Context context) {
+            this();
+            mLineCount = DEFAULT_LINE_COUNT;
+            mStyle = LINE;
+            mShader = LINEAR;
+            mLineWidth = UnitUtils.dip2px(context, DEFAULT_LINE_WIDTH);
+            mProgressFirstTextSize = UnitUtils.dip2px(context, DEFAULT_PROGRESS_TEXT_SIZE);
+            mProgressFirstStrokeWidth = UnitUtils.dip2px(context, DEFAULT_PROGRESS_STROKE_WIDTH);
+            mProgressFirstFirstStartColor = COLOR_FFF2A670;
+            mProgressFirstFirstEndColor = COLOR_FFF2A670;
+            mProgressFirstSecondStartColor = COLOR_TRANSPARENT;
+            mProgressFirstSecondEndColor = COLOR_TRANSPARENT;
+            mProgressFirstTextColor = COLOR_FFF2A670;
+            mProgressFirstBackgroundColor = COLOR_FFD3D3D5;
+            mStartDegree = DEFAULT_START_DEGREE;
+            mLodMinLineGap = UnitUtils.dip2px(context, DEFAULT_LOD_MIN_LINE_GAP);
+            updatePaint();
+        }
+
+        ProgressState(ProgressState state) {
+            mProgressFirstPaint = new Paint(state.mProgressFirstPaint);
+            mProgressSecondPaint = new Paint(state.mProgressSecondPaint);
+            mProgressFirstBackgroundPaint = new Paint(state.mProgressFirstBackgroundPaint);
+            mProgressFirstTextPaint = new TextPaint(state.mProgressFirstTextPaint);
+
+            mGeneration = state.mGeneration;
+
+            mLineCount = state.mLineCount;
+            mLineWidth = state.mLineWidth;
+            mProgressFirstStrokeWidth = state.mProgressFirstStrokeWidth;
+            mProgressFirstTextSize = state.mProgressFirstTextSize;
+            mProgressFirstFirstStartColor = state.mProgressFirstFirstStartColor;
+            mProgressFirstFirstEndColor = state.mProgressFirstFirstEndColor;
+            mProgressFirstSecondStartColor = state.mProgressFirstSecondStartColor;
+            mProgressFirstSecondEndColor = state.mProgressFirstSecondEndColor;
+            mProgressFirstTextColor = state.mProgressFirstTextColor;
+            mProgressFirstBackgroundColor = state.mProgressFirstBackgroundColor;
+            mStartDegree = state.mStartDegree;
+            mDrawBackgroundOutsideProgress = state.mDrawBackgroundOutsideProgress;
+            mBackgroundLayerEnabled = state.mBackgroundLayerEnabled;
+            mOverdrawFree = state.mOverdrawFree;
+            mFrameCacheEnabled = state.mFrameCacheEnabled;
+            mLodEnabled = state.mLodEnabled;
+            mLodMinLineGap = state.mLodMinLineGap;
+            mLodMinLineCount = state.mLodMinLineCount;
+            mProgressFirstFormatter = state.mProgressFirstFormatter;
+            mStyle = state.mStyle;
+            mShader = state.mShader;
+            mCap = state.mCap;
+        }
+
+        /**
+         * Paint initialization, need to be invoked when any field the paints depend on changed
+         */
+        void updatePaint() {
+            mProgressFirstTextPaint.setTextAlign(Paint.Align.CENTER);
+            mProgressFirstTextPaint.setTextSize(mProgressFirstTextSize);
+            mProgressFirstTextPaint.setColor(mProgressFirstTextColor);
+
+            Paint.Style paintStyle = mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE;
+
+            configureFirstPaint(mProgressFirstPaint);
+            configureSecondPaint(mProgressSecondPaint);
+
+            mProgressFirstBackgroundPaint.setStyle(paintStyle);
+            mProgressFirstBackgroundPaint.setStrokeWidth(mProgressFirstStrokeWidth);
+            mProgressFirstBackgroundPaint.setColor(mProgressFirstBackgroundColor);
+            mProgressFirstBackgroundPaint.setStrokeCap(mCap);
+        }
+
+        /**
+         * Configure the paint like mProgressFirstPaint from the fields, without reading the shared paints
+         */
+        void configureFirstPaint(Paint paint) {
+            paint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
+            paint.setStrokeWidth(mProgressFirstStrokeWidth);
+            paint.setColor(mProgressFirstFirstStartColor);
+            paint.setStrokeCap(mCap);
+        }
+
+        /**
+         * Configure the paint like mProgressSecondPaint from the fields, without reading the shared paints
+         */
+        void configureSecondPaint(Paint paint) {
+            paint.setStyle(mStyle == SOLID ? Paint.Style.FILL : Paint.Style.STROKE);
+            paint.setStrokeWidth(mProgressFirstStrokeWidth);
+            paint.setColor(mProgressFirstSecondStartColor);
+            paint.setStrokeCap(mCap);
+        }
+
+        @Override
+        public Drawable newDrawable() {
+            return new CircleProgressDrawable(this);
+        }
+
+        @Override
+        public int getChangingConfigurations() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.dinuscxj.progressbar;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * A frame callback driven by the {@link Choreographer} frame time on Jelly Bean and above,
+ * and by a delayed main thread message before it. Must be posted from the main thread.
+ */
+abstract class FrameCallbackCompat implements Runnable {
+    private static final long FRAME_DELAY_MS = 16;
+
+    private Object mChoreographerCallback;
+    private Handler mHandler;
+
+    /**
+     * @param frameTimeNanos the time of the frame in the {@link System#nanoTime()} time base
+     */
+    abstract void doFrame(long frameTimeNanos);
+
+    final void postFrameCallback() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mChoreographerCallback == null) {
+                mChoreographerCallback = new ChoreographerCallback(this);
+            }
+            Choreographer.getInstance().postFrameCallback((Choreographer.FrameCallback) mChoreographerCallback);
+        } else {
+            if (mHandler == null) {
+                mHandler = new Handler(Looper.getMainLooper());
+            }
+            mHandler.postDelayed(this, FRAME_DELAY_MS);
+        }
+    }
+
+    final void removeFrameCallback() {
+        if (mChoreographerCallback != null) {
+            Choreographer.getInstance().removeFrameCallback((Choreographer.FrameCallback) mChoreographerCallback);
+        }
+        if (mHandler != null) {
+            mHandler.removeCallbacks(this);
+        }
+    }
+
+    @Override
+    public final void run() {
+        doFrame(System.nanoTime());
+    }
+
+    private static final class ChoreographerCallback implements Choreographer.FrameCallback {
+        private final FrameCallbackCompat mCallback;
+
+        ChoreographerCallback(FrameCallbackCompat callback) {
+            mCallback = callback;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mCallback.doFrame(frameTimeNanos);
+        }
+    }
+}
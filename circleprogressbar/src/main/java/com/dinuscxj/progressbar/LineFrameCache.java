@@ -0,0 +1,238 @@
+package com.dinuscxj.progressbar;
+
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+
+/**
+ * A process wide, byte budgeted LRU cache of the rendered rings of the Line Style. A ring in the Line Style
+ * only has lineCount + 1 visual states per progress, so a frame is keyed by the style, the size and the line
+ * counts of the first and the second progress, and an animating ring only draws the cached bitmaps.
+ * The evicted frames are kept in a small pool and reused for the next frames of the same size, but only once
+ * no drawable holds them anymore, so no display list still being drawn refers to them.
+ */
+public final class LineFrameCache {
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    //The max count of the evicted frames kept for reuse
+    private static final int MAX_POOL_SIZE = 4;
+
+    private static final LruCache<Key, Frame> sCache = new LruCache<Key, Frame>(DEFAULT_MAX_BYTES) {
+        @Override
+        protected int sizeOf(Key key, Frame frame) {
+            return frame.bitmap.getByteCount();
+        }
+
+        @Override
+        protected void entryRemoved(boolean evicted, Key key, Frame oldFrame, Frame newFrame) {
+            if (oldFrame != newFrame) {
+                recycleFrame(oldFrame);
+            }
+        }
+    };
+
+    //Reused for every look up and guarded by itself, never stored in the cache
+    private static final Key sLookupKey = new Key();
+
+    //The evicted frames, the oldest is replaced when full, guarded by sPool
+    private static final Frame[] sPool = new Frame[MAX_POOL_SIZE];
+    private static int sPoolNext;
+    //The bitmaps created for the frames, guarded by sPool
+    private static int sCreateCount;
+
+    private LineFrameCache() {
+    }
+
+    /**
+     * @param maxBytes the max bytes of the cached frames, 0 drops all of them
+     */
+    public static void setMaxBytes(int maxBytes) {
+        if (maxBytes <= 0) {
+            clear();
+        } else {
+            sCache.resize(maxBytes);
+        }
+    }
+
+    public static int maxBytes() {
+        return sCache.maxSize();
+    }
+
+    public static int sizeBytes() {
+        return sCache.size();
+    }
+
+    public static int hitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int missCount() {
+        return sCache.missCount();
+    }
+
+    public static int evictionCount() {
+        return sCache.evictionCount();
+    }
+
+    /**
+     * @return the count of the bitmaps created for the frames, the misses not served by the pool
+     */
+    public static int createCount() {
+        synchronized (sPool) {
+            return sCreateCount;
+        }
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+        synchronized (sPool) {
+            for (int i = 0; i < MAX_POOL_SIZE; i++) {
+                sPool[i] = null;
+            }
+        }
+    }
+
+    /**
+     * @return whether a frame of the size fits the budget
+     */
+    static boolean accepts(int width, int height) {
+        return width > 0 && height > 0 && (long) width * height * 4 <= sCache.maxSize() / 4;
+    }
+
+    static boolean contains(Object style, int generation, int width, int height, int firstLineCount,
+                            int secondLineCount) {
+        Key lookupKey = sLookupKey;
+        synchronized (lookupKey) {
+            lookupKey.set(style, generation, width, height, firstLineCount, secondLineCount);
+            return sCache.get(lookupKey) != null;
+        }
+    }
+
+    /**
+     * @return the cached frame, held until {@link #release(Frame)}, or null if missing
+     */
+    static Frame acquire(Object style, int generation, int width, int height, int firstLineCount,
+                         int secondLineCount) {
+        //the frame can't be evicted and obtained again between the look up and the hold
+        synchronized (sPool) {
+            Key lookupKey = sLookupKey;
+            Frame frame;
+            synchronized (lookupKey) {
+                lookupKey.set(style, generation, width, height, firstLineCount, secondLineCount);
+                frame = sCache.get(lookupKey);
+            }
+            if (frame != null) {
+                frame.users++;
+            }
+            return frame;
+        }
+    }
+
+    /**
+     * @return a frame to render, held until {@link #release(Frame)}. An evicted one of the size that
+     * nobody holds is reused if any, its content is undefined.
+     */
+    static Frame obtain(int width, int height) {
+        synchronized (sPool) {
+            for (int i = 0; i < MAX_POOL_SIZE; i++) {
+                Frame frame = sPool[i];
+                if (frame != null && frame.users == 0
+                        && frame.bitmap.getWidth() == width && frame.bitmap.getHeight() == height) {
+                    sPool[i] = null;
+                    frame.users = 1;
+                    return frame;
+                }
+            }
+            sCreateCount++;
+        }
+        Frame frame = new Frame(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+        frame.users = 1;
+        return frame;
+    }
+
+    /**
+     * Cache the frame obtained by {@link #obtain(int, int)} and rendered, it is still held by the caller
+     */
+    static void put(Object style, int generation, int width, int height, int firstLineCount, int secondLineCount,
+                    Frame frame) {
+        frame.key.set(style, generation, width, height, firstLineCount, secondLineCount);
+        sCache.put(frame.key, frame);
+    }
+
+    /**
+     * A drawable holds the frame it drew last, its recorded display list refers to the frame until
+     * it draws another
+     */
+    static void release(Frame frame) {
+        synchronized (sPool) {
+            frame.users--;
+        }
+    }
+
+    private static void recycleFrame(Frame frame) {
+        synchronized (sPool) {
+            //the replaced frame is left to the garbage collector
+            sPool[sPoolNext] = frame;
+            sPoolNext = (sPoolNext + 1) % MAX_POOL_SIZE;
+        }
+    }
+
+    /**
+     * A cached bitmap with its key, both reused when the frame is recycled
+     */
+    static final class Frame {
+        final Bitmap bitmap;
+        final Key key = new Key();
+        //The drawables drawing the frame and the renderers rendering it, guarded by sPool
+        int users;
+
+        Frame(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+    }
+
+    private static final class Key {
+        Object style;
+        int generation;
+        int width;
+        int height;
+        int firstLineCount;
+        int secondLineCount;
+
+        void set(Object style, int generation, int width, int height, int firstLineCount, int secondLineCount) {
+            this.style = style;
+            this.generation = generation;
+            this.width = width;
+            this.height = height;
+            this.firstLineCount = firstLineCount;
+            this.secondLineCount = secondLineCount;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return style == key.style
+                    && generation == key.generation
+                    && width == key.width
+                    && height == key.height
+                    && firstLineCount == key.firstLineCount
+                    && secondLineCount == key.secondLineCount;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(style);
+            result = 31 * result + generation;
+            result = 31 * result + width;
+            result = 31 * result + height;
+            result = 31 * result + firstLineCount;
+            result = 31 * result + secondLineCount;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.dinuscxj.progressbar;
+
+import android.graphics.Rect;
+
+/**
+ * Drives many {@link CircleProgressBar}s from one frame callback: the progress set through the group is
+ * only recorded, and applied to all the bars at once at the next frame. Unchanged values are dropped,
+ * the updates of the bars on screen beyond the budget of a frame are spread over the following frames,
+ * and the bars off screen are handed their progress through {@link CircleProgressBar#postProgress(int, int)},
+ * drawn once they are, without counting against the budget. The progress is otherwise applied through
+ * {@link CircleProgressBar#setProgress(int, int, int)}, like any other progress of the bar.
+ * The group holds the registered bars until they are unregistered, so a bar must be unregistered once
+ * it isn't used anymore, or it leaks with its context. Must be used on the main thread.
+ */
+public final class ProgressBarGroup {
+    public static final int DEFAULT_MAX_UPDATES_PER_FRAME = 64;
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 4000000L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    //The registered bars by slot, a null slot is free
+    private CircleProgressBar[] mBars = new CircleProgressBar[DEFAULT_CAPACITY];
+    private int[] mPendingFirst = new int[DEFAULT_CAPACITY];
+    private int[] mPendingSecond = new int[DEFAULT_CAPACITY];
+    private int[] mPendingMax = new int[DEFAULT_CAPACITY];
+    private boolean[] mPending = new boolean[DEFAULT_CAPACITY];
+    private int mPendingCount;
+    //The slots after the last registered bar are free
+    private int mSlotCount;
+
+    private int mMaxUpdatesPerFrame = DEFAULT_MAX_UPDATES_PER_FRAME;
+    private long mFrameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    private final Rect mVisibleRect = new Rect();
+
+    private final FrameCallbackCompat mFrameCallback = new FrameCallbackCompat() {
+        @Override
+        void doFrame(long frameTimeNanos) {
+            doGroupFrame();
+        }
+    };
+    private boolean mFramePosted;
+
+    /**
+     * The bar is held until {@link #unregister(CircleProgressBar)}
+     *
+     * @return the slot of the bar, used to set its progress
+     */
+    public int register(CircleProgressBar bar) {
+        int slot = indexOf(bar);
+        if (slot >= 0) {
+            return slot;
+        }
+
+        for (slot = 0; slot < mSlotCount; slot++) {
+            if (mBars[slot] == null) {
+                break;
+            }
+        }
+        if (slot == mBars.length) {
+            grow(slot * 2);
+        }
+
+        mBars[slot] = bar;
+        mPending[slot] = false;
+        mSlotCount = Math.max(mSlotCount, slot + 1);
+        return slot;
+    }
+
+    /**
+     * Remove the bar, its pending progress is dropped
+     */
+    public void unregister(CircleProgressBar bar) {
+        int slot = indexOf(bar);
+        if (slot < 0) {
+            return;
+        }
+
+        mBars[slot] = null;
+        if (mPending[slot]) {
+            mPending[slot] = false;
+            mPendingCount--;
+        }
+        while (mSlotCount > 0 && mBars[mSlotCount - 1] == null) {
+            mSlotCount--;
+        }
+    }
+
+    public int indexOf(CircleProgressBar bar) {
+        for (int i = 0; i < mSlotCount; i++) {
+            if (mBars[i] == bar) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Record the progress of the bar in the slot, applied at the next frame. Only the last values set
+     * before the frame are applied.
+     */
+    public void setProgress(int slot, int first, int second, int max) {
+        if (slot < 0 || slot >= mSlotCount || mBars[slot] == null) {
+            throw new IllegalArgumentException("no bar is registered in the slot " + slot);
+        }
+
+        mPendingFirst[slot] = first;
+        mPendingSecond[slot] = second;
+        mPendingMax[slot] = max;
+        if (!mPending[slot]) {
+            mPending[slot] = true;
+            mPendingCount++;
+        }
+
+        if (!mFramePosted) {
+            mFramePosted = true;
+            mFrameCallback.postFrameCallback();
+        }
+    }
+
+    public void setProgress(int slot, int first, int second) {
+        setProgress(slot, first, second, slot >= 0 && slot < mSlotCount && mBars[slot] != null
+                ? mBars[slot].getMax() : CircleProgressDrawable.DEFAULT_MAX);
+    }
+
+    /**
+     * @param maxUpdatesPerFrame the max count of the bars updated in one frame
+     * @param frameBudgetNanos   the time after which no more bar is updated in the frame
+     */
+    public void setFrameBudget(int maxUpdatesPerFrame, long frameBudgetNanos) {
+        mMaxUpdatesPerFrame = Math.max(1, maxUpdatesPerFrame);
+        mFrameBudgetNanos = frameBudgetNanos;
+    }
+
+    public int getPendingCount() {
+        return mPendingCount;
+    }
+
+    /**
+     * Drop all the pending progress and stop the frame callback
+     */
+    public void cancel() {
+        for (int i = 0; i < mSlotCount; i++) {
+            mPending[i] = false;
+        }
+        mPendingCount = 0;
+        if (mFramePosted) {
+            mFramePosted = false;
+            mFrameCallback.removeFrameCallback();
+        }
+    }
+
+    private void doGroupFrame() {
+        mFramePosted = false;
+        long startNanos = System.nanoTime();
+
+        int updates = 0;
+        for (int i = 0; i < mSlotCount && mPendingCount > 0; i++) {
+            if (!mPending[i]) {
+                continue;
+            }
+            //evaluated once per bar and frame, a bar off screen never waits for the budget
+            CircleProgressBar bar = mBars[i];
+            boolean onScreen = isOnScreen(bar);
+            if (onScreen && (updates >= mMaxUpdatesPerFrame
+                    || System.nanoTime() - startNanos >= mFrameBudgetNanos)) {
+                continue;
+            }
+
+            mPending[i] = false;
+            mPendingCount--;
+
+            if (bar.getProgress() == mPendingFirst[i] && bar.getProgressSecond() == mPendingSecond[i]
+                    && bar.getMax() == mPendingMax[i] && !bar.isProgressAnimating()) {
+                continue;
+            }
+            if (!onScreen && bar.getMax() == mPendingMax[i] && !bar.isProgressAnimating()) {
+                //applied when the bar is drawn next, or by its next progress write
+                bar.postProgress(mPendingFirst[i], mPendingSecond[i]);
+            } else {
+                bar.setProgress(mPendingFirst[i], mPendingSecond[i], mPendingMax[i]);
+                if (onScreen) {
+                    updates++;
+                }
+            }
+        }
+
+        if (mPendingCount > 0) {
+            mFramePosted = true;
+            mFrameCallback.postFrameCallback();
+        }
+    }
+
+    private boolean isOnScreen(CircleProgressBar bar) {
+        return bar.getWindowToken() != null && bar.isShown() && bar.getLocalVisibleRect(mVisibleRect);
+    }
+
+    private void grow(int capacity) {
+        CircleProgressBar[] bars = new CircleProgressBar[capacity];
+        int[] pendingFirst = new int[capacity];
+        int[] pendingSecond = new int[capacity];
+        int[] pendingMax = new int[capacity];
+        boolean[] pending = new boolean[capacity];
+        System.arraycopy(mBars, 0, bars, 0, mSlotCount);
+        System.arraycopy(mPendingFirst, 0, pendingFirst, 0, mSlotCount);
+        System.arraycopy(mPendingSecond, 0, pendingSecond, 0, mSlotCount);
+        System.arraycopy(mPendingMax, 0, pendingMax, 0, mSlotCount);
+        System.arraycopy(mPending, 0, pending, 0, mSlotCount);
+        mBars = bars;
+        mPendingFirst = pendingFirst;
+        mPendingSecond = pendingSecond;
+        mPendingMax = pendingMax;
+        mPending = pending;
+    }
+}
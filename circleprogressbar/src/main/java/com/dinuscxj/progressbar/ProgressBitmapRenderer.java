@@ -0,0 +1,128 @@
+package com.dinuscxj.progressbar;
+
+import java.util.WeakHashMap;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+/**
+ * Renders a progress ring into a Bitmap on any thread, for the notifications and the app widgets which
+ * can only show a bitmap. It draws with the same {@link CircleProgressDrawable} as {@link CircleProgressBar},
+ * and the bitmaps come from a pool by size: give a bitmap back with {@link #release(Bitmap)} once it has been
+ * delivered (for example after NotificationManager.notify), so the next update reuses it.
+ */
+public final class ProgressBitmapRenderer {
+    //The max count of the released bitmaps kept for reuse
+    private static final int MAX_POOL_SIZE = 8;
+
+    //The renderer of every style, each draws with its own copy of the style, guarded by sRenderers
+    private static final WeakHashMap<CircleProgressBarStyle, Renderer> sRenderers = new WeakHashMap<>();
+
+    //The released bitmaps, guarded by sPool
+    private static final Bitmap[] sPool = new Bitmap[MAX_POOL_SIZE];
+    private static int sNextPoolSlot;
+
+    private ProgressBitmapRenderer() {
+    }
+
+    /**
+     * Render with the progress formatter of the style
+     */
+    public static Bitmap render(CircleProgressBarStyle style, int width, int height,
+                                int progress, int secondProgress, int max) {
+        return render(style, width, height, progress, secondProgress, max, style.getProgressFormatter());
+    }
+
+    /**
+     * @param formatter the formatter of the progress text, null draws no text
+     * @return a bitmap from the pool of the size, or a new one
+     */
+    public static Bitmap render(CircleProgressBarStyle style, int width, int height,
+                                int progress, int secondProgress, int max,
+                                CircleProgressBar.ProgressFormatter formatter) {
+        Renderer renderer;
+        synchronized (sRenderers) {
+            renderer = sRenderers.get(style);
+            if (renderer == null) {
+                renderer = new Renderer(style);
+                sRenderers.put(style, renderer);
+            }
+        }
+
+        Bitmap bitmap = obtainBitmap(width, height);
+        synchronized (renderer) {
+            renderer.render(bitmap, progress, secondProgress, max, formatter);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Give back a bitmap returned by render, it must not be used anymore
+     */
+    public static void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled() || !bitmap.isMutable()) {
+            return;
+        }
+        synchronized (sPool) {
+            for (int i = 0; i < MAX_POOL_SIZE; i++) {
+                if (sPool[i] == bitmap) {
+                    return;
+                }
+            }
+            sPool[sNextPoolSlot] = bitmap;
+            sNextPoolSlot = (sNextPoolSlot + 1) % MAX_POOL_SIZE;
+        }
+    }
+
+    /**
+     * Drop the pooled bitmaps and the renderers
+     */
+    public static void clear() {
+        synchronized (sPool) {
+            for (int i = 0; i < MAX_POOL_SIZE; i++) {
+                sPool[i] = null;
+            }
+        }
+        synchronized (sRenderers) {
+            sRenderers.clear();
+        }
+    }
+
+    private static Bitmap obtainBitmap(int width, int height) {
+        synchronized (sPool) {
+            for (int i = 0; i < MAX_POOL_SIZE; i++) {
+                Bitmap bitmap = sPool[i];
+                if (bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                    sPool[i] = null;
+                    return bitmap;
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private static final class Renderer {
+        private final CircleProgressDrawable mDrawable;
+        private final Canvas mCanvas = new Canvas();
+
+        Renderer(CircleProgressBarStyle style) {
+            //the paints of the style are only read while drawing, the shaders are set on the paints of the
+            //drawable, and the style is copied on the first change, so nothing is copied off the main thread
+            mDrawable = style.newDrawable();
+        }
+
+        void render(Bitmap bitmap, int progress, int secondProgress, int max,
+                    CircleProgressBar.ProgressFormatter formatter) {
+            mDrawable.setBounds(0, 0, bitmap.getWidth(), bitmap.getHeight());
+            mDrawable.setProgressFormatter(formatter);
+            mDrawable.setMax(max);
+            mDrawable.applyProgress(progress, secondProgress);
+
+            bitmap.eraseColor(Color.TRANSPARENT);
+            mCanvas.setBitmap(bitmap);
+            mDrawable.draw(mCanvas);
+            mCanvas.setBitmap(null);
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.dinuscxj.progressbar;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.AttributeSet;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+/**
+ * Draws many progress rings into one surface on a dedicated render thread, for screens where one View
+ * per ring is too many. Every ring is a {@link CircleProgressDrawable} with its own copy of a
+ * {@link CircleProgressBarStyle}, laid out in a grid or at explicit bounds. The progress can be set
+ * from any thread without locking, and only the rings whose progress changed are redrawn.
+ * The progress formatters of the styles are invoked on the render thread.
+ */
+public class ProgressRingSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    //mPendingProgress holds no progress for the ring
+    private static final long NO_PENDING_PROGRESS = Long.MIN_VALUE;
+
+    //Guards the rings and the surface, the render thread holds it while drawing
+    private final Object mLock = new Object();
+
+    private CircleProgressDrawable[] mRings = new CircleProgressDrawable[DEFAULT_CAPACITY];
+    //Whether the bounds of the ring are set explicitly instead of by the grid
+    private boolean[] mExplicitBounds = new boolean[DEFAULT_CAPACITY];
+    //Written holding mLock, read by setProgress without it
+    private volatile int mRingCount;
+
+    //The latest progress set for every ring and not drawn yet, the first in the high 32 bits
+    private volatile AtomicLongArray mPendingProgress = newPendingProgress(DEFAULT_CAPACITY);
+
+    //The edits not applied yet, in order, applied by the render thread before the next frame
+    private final List<PendingEdit> mPendingEdits = new ArrayList<>();
+
+    private int mColumns = 1;
+    private int mRingPadding;
+    private int mBackgroundColor = Color.TRANSPARENT;
+
+    private int mSurfaceWidth;
+    private int mSurfaceHeight;
+    private boolean mSurfaceValid;
+    //Whether the whole surface need to be redrawn at the next frame
+    private boolean mFullRedraw;
+    //Whether the grid need to be laid out again by the render thread at the next frame
+    private boolean mLayoutRequested;
+
+    private HandlerThread mRenderThread;
+    private volatile Handler mRenderHandler;
+    private final AtomicBoolean mFrameRequested = new AtomicBoolean();
+    private final Rect mDirtyRect = new Rect();
+
+    private final Runnable mRenderRunnable = new Runnable() {
+        @Override
+        public void run() {
+            renderFrame();
+        }
+    };
+
+    public ProgressRingSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public ProgressRingSurfaceView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        getHolder().setFormat(PixelFormat.TRANSLUCENT);
+        getHolder().addCallback(this);
+    }
+
+    /**
+     * Add a ring drawn with its own copy of the style, laid out in the next cell of the grid
+     *
+     * @return the index of the ring
+     */
+    public int addRing(CircleProgressBarStyle style) {
+        //the style is copied by the first edit, drawing never changes its paints
+        CircleProgressDrawable ring = style.newDrawable();
+
+        int index;
+        synchronized (mLock) {
+            index = mRingCount;
+            if (index == mRings.length) {
+                grow(index * 2);
+            }
+            mRings[index] = ring;
+            mExplicitBounds[index] = false;
+            mPendingProgress.set(index, NO_PENDING_PROGRESS);
+            mRingCount++;
+            mLayoutRequested = true;
+            mFullRedraw = true;
+        }
+        requestFrame();
+        return index;
+    }
+
+    public int getRingCount() {
+        synchronized (mLock) {
+            return mRingCount;
+        }
+    }
+
+    /**
+     * Place the ring at explicit bounds in the surface instead of in the grid
+     */
+    public void setRingBounds(int index, int left, int top, int right, int bottom) {
+        synchronized (mLock) {
+            checkIndex(index);
+            mRings[index].setBounds(left, top, right, bottom);
+            mExplicitBounds[index] = true;
+            mFullRedraw = true;
+        }
+        requestFrame();
+    }
+
+    /**
+     * Lay out the rings without explicit bounds in square cells of this count of columns
+     */
+    public void setColumns(int columns, int ringPadding) {
+        synchronized (mLock) {
+            mColumns = Math.max(1, columns);
+            mRingPadding = ringPadding;
+            mLayoutRequested = true;
+            mFullRedraw = true;
+        }
+        requestFrame();
+    }
+
+    /**
+     * @param backgroundColor the color the surface is cleared with under the rings
+     */
+    public void setSurfaceBackgroundColor(int backgroundColor) {
+        synchronized (mLock) {
+            mBackgroundColor = backgroundColor;
+            mFullRedraw = true;
+        }
+        requestFrame();
+    }
+
+    /**
+     * Set the progress of the ring from any thread without locking or allocating,
+     * only the latest progress set before the ring is redrawn is drawn. A negative progress is set as 0.
+     */
+    public void setProgress(int index, int first, int second) {
+        long progress = ((long) Math.max(first, 0) << 32) | (Math.max(second, 0) & 0xFFFFFFFFL);
+        if (index < 0 || index >= mRingCount) {
+            throw new IndexOutOfBoundsException("no ring " + index);
+        }
+        AtomicLongArray pendingProgress = mPendingProgress;
+        pendingProgress.set(index, progress);
+        //written again if the array was replaced meanwhile, see grow()
+        while (mPendingProgress != pendingProgress) {
+            pendingProgress = mPendingProgress;
+            pendingProgress.set(index, progress);
+        }
+        requestFrame();
+    }
+
+    /**
+     * Change the style of a ring through the editor on the render thread before the next frame, the edits
+     * are applied in order and kept while the surface is destroyed. The ring must only be used inside
+     * {@link RingEditor#edit(CircleProgressDrawable)}
+     */
+    public void editRing(int index, RingEditor editor) {
+        synchronized (mLock) {
+            checkIndex(index);
+            mPendingEdits.add(new PendingEdit(index, editor));
+        }
+        requestFrame();
+    }
+
+    /**
+     * Changes the style of a ring on the render thread, see {@link #editRing(int, RingEditor)}
+     */
+    public interface RingEditor {
+        void edit(CircleProgressDrawable ring);
+    }
+
+    private static final class PendingEdit {
+        final int index;
+        final RingEditor editor;
+
+        PendingEdit(int index, RingEditor editor) {
+            this.index = index;
+            this.editor = editor;
+        }
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        synchronized (mLock) {
+            mRenderThread = new HandlerThread("ProgressRingSurfaceView", Process.THREAD_PRIORITY_DISPLAY);
+            mRenderThread.start();
+            mRenderHandler = new Handler(mRenderThread.getLooper());
+        }
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        synchronized (mLock) {
+            mSurfaceWidth = width;
+            mSurfaceHeight = height;
+            mSurfaceValid = true;
+            mLayoutRequested = true;
+            mFullRedraw = true;
+        }
+        requestFrame();
+    }
+
+    /**
+     * The surface must not be drawn once this returns, so it waits for the frame being drawn
+     */
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        synchronized (mLock) {
+            mSurfaceValid = false;
+            if (mRenderThread != null) {
+                mRenderThread.quit();
+                mRenderThread = null;
+                mRenderHandler = null;
+            }
+        }
+        mFrameRequested.set(false);
+    }
+
+    private void requestFrame() {
+        Handler handler = mRenderHandler;
+        if (handler != null && !mFrameRequested.getAndSet(true)) {
+            handler.post(mRenderRunnable);
+        }
+    }
+
+    /**
+     * Draw the rings of the changed progress, runs on the render thread
+     */
+    private void renderFrame() {
+        mFrameRequested.set(false);
+
+        synchronized (mLock) {
+            //the edits survive a destroyed surface and are applied once a render thread runs again
+            int editCount = mPendingEdits.size();
+            if (editCount > 0) {
+                for (int i = 0; i < editCount; i++) {
+                    PendingEdit edit = mPendingEdits.get(i);
+                    edit.editor.edit(mRings[edit.index]);
+                }
+                mPendingEdits.clear();
+                mFullRedraw = true;
+            }
+
+            if (!mSurfaceValid) {
+                return;
+            }
+
+            if (mLayoutRequested) {
+                layoutRings();
+                mLayoutRequested = false;
+                mFullRedraw = true;
+            }
+
+            Rect dirty = mDirtyRect;
+            dirty.setEmpty();
+            AtomicLongArray pendingProgress = mPendingProgress;
+            for (int i = 0; i < mRingCount; i++) {
+                long progress = pendingProgress.getAndSet(i, NO_PENDING_PROGRESS);
+                if (progress != NO_PENDING_PROGRESS) {
+                    mRings[i].applyProgress((int) (progress >> 32), (int) progress);
+                    dirty.union(mRings[i].getBounds());
+                }
+            }
+            if (mFullRedraw) {
+                dirty.set(0, 0, mSurfaceWidth, mSurfaceHeight);
+                mFullRedraw = false;
+            }
+            if (dirty.isEmpty()) {
+                return;
+            }
+
+            SurfaceHolder holder = getHolder();
+            //the surface may enlarge the dirty rect, every ring in it is redrawn
+            Canvas canvas = holder.lockCanvas(dirty);
+            if (canvas == null) {
+                return;
+            }
+            try {
+                canvas.drawColor(mBackgroundColor, PorterDuff.Mode.SRC);
+                for (int i = 0; i < mRingCount; i++) {
+                    CircleProgressDrawable ring = mRings[i];
+                    if (Rect.intersects(ring.getBounds(), dirty)) {
+                        ring.draw(canvas);
+                    }
+                }
+            } finally {
+                holder.unlockCanvasAndPost(canvas);
+            }
+        }
+    }
+
+    /**
+     * Runs on the render thread holding mLock, the size, the columns or the rings changed
+     */
+    private void layoutRings() {
+        if (mSurfaceWidth <= 0) {
+            return;
+        }
+
+        int cellSize = mSurfaceWidth / mColumns;
+        for (int i = 0; i < mRingCount; i++) {
+            if (mExplicitBounds[i]) {
+                continue;
+            }
+            int left = i % mColumns * cellSize;
+            int top = i / mColumns * cellSize;
+            mRings[i].setBounds(left + mRingPadding, top + mRingPadding,
+                    left + cellSize - mRingPadding, top + cellSize - mRingPadding);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mRingCount) {
+            throw new IndexOutOfBoundsException("no ring " + index);
+        }
+    }
+
+    /**
+     * Need to be invoked holding mLock
+     */
+    private void grow(int capacity) {
+        CircleProgressDrawable[] rings = new CircleProgressDrawable[capacity];
+        boolean[] explicitBounds = new boolean[capacity];
+        System.arraycopy(mRings, 0, rings, 0, mRingCount);
+        System.arraycopy(mExplicitBounds, 0, explicitBounds, 0, mRingCount);
+        mRings = rings;
+        mExplicitBounds = explicitBounds;
+
+        AtomicLongArray oldPendingProgress = mPendingProgress;
+        AtomicLongArray pendingProgress = newPendingProgress(capacity);
+        mPendingProgress = pendingProgress;
+        //a progress set meanwhile into the new array is newer than the one moved here
+        for (int i = 0; i < mRingCount; i++) {
+            long progress = oldPendingProgress.getAndSet(i, NO_PENDING_PROGRESS);
+            if (progress != NO_PENDING_PROGRESS) {
+                pendingProgress.compareAndSet(i, NO_PENDING_PROGRESS, progress);
+            }
+        }
+    }
+
+    private static AtomicLongArray newPendingProgress(int capacity) {
+        AtomicLongArray pendingProgress = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            pendingProgress.set(i, NO_PENDING_PROGRESS);
+        }
+        return pendingProgress;
+    }
+}
@@ -0,0 +1,145 @@
+package com.dinuscxj.progressbar;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.SparseArray;
+
+/**
+ * The cached layout of a styled progress text, so the spans of the formatted text are drawn and the text
+ * is only laid out again when its chars, its span ranges or the text paint changed. The layouts of a range
+ * of progress can be precomputed on the background thread. Must be used on the main thread.
+ */
+final class ProgressTextLayout {
+    //The max count of the precomputed layouts
+    static final int MAX_PRECOMPUTED_COUNT = 256;
+
+    //The text paint the layouts are built with, left aligned as the layouts center the text themselves
+    private final TextPaint mPaint = new TextPaint();
+    private CircleProgressBar.ProgressFormatter mFormatter;
+    private int mMax;
+
+    private Spanned mText;
+    private StaticLayout mLayout;
+
+    //The layouts precomputed by progress, for mFormatter, mMax and mPaint
+    private final SparseArray<StaticLayout> mPrecomputed = new SparseArray<>();
+
+    /**
+     * @return the layout of the text, rebuilt only if the text or the text paint changed
+     */
+    StaticLayout obtain(Spanned text, int progress, int max, CircleProgressBar.ProgressFormatter formatter,
+                        TextPaint textPaint) {
+        prepare(max, formatter, textPaint);
+
+        if (mLayout != null && isSameText(mText, text)) {
+            return mLayout;
+        }
+
+        StaticLayout precomputed = mPrecomputed.get(progress);
+        if (precomputed != null && TextUtils.equals(precomputed.getText(), text)) {
+            mLayout = precomputed;
+        } else {
+            mLayout = build(text, mPaint);
+        }
+        mText = text;
+        return mLayout;
+    }
+
+    /**
+     * Format and lay out the progress from fromProgress to toProgress (at most {@link #MAX_PRECOMPUTED_COUNT} of them)
+     * on the background thread, the formatter must be thread safe. Only the styled texts are kept.
+     */
+    void precompute(final int fromProgress, int toProgress, final int max,
+                    final CircleProgressBar.ProgressFormatter formatter, TextPaint textPaint) {
+        final int count = Math.min(toProgress - fromProgress + 1, MAX_PRECOMPUTED_COUNT);
+        if (formatter == null || count <= 0) {
+            return;
+        }
+        //the layouts are handed off only if they are still built for the recorded ones
+        prepare(max, formatter, textPaint);
+
+        final TextPaint paint = new TextPaint(textPaint);
+        paint.setTextAlign(Paint.Align.LEFT);
+        BackgroundThread.post(new Runnable() {
+            @Override
+            public void run() {
+                final SparseArray<StaticLayout> layouts = new SparseArray<>(count);
+                for (int i = 0; i < count; i++) {
+                    int progress = fromProgress + i;
+                    CharSequence text = formatter.format(progress, max);
+                    if (text instanceof Spanned) {
+                        layouts.put(progress, build(text, paint));
+                    }
+                }
+
+                BackgroundThread.postToMain(new Runnable() {
+                    @Override
+                    public void run() {
+                        //dropped if the text paint, the formatter or the max changed meanwhile
+                        if (!isSamePaint(mPaint, paint) || mFormatter != formatter || mMax != max) {
+                            return;
+                        }
+                        for (int i = 0, size = layouts.size(); i < size && mPrecomputed.size() < MAX_PRECOMPUTED_COUNT; i++) {
+                            mPrecomputed.put(layouts.keyAt(i), layouts.valueAt(i));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Record the max, the formatter and the text paint the layouts are built for, the layouts built
+     * for others are dropped
+     */
+    private void prepare(int max, CircleProgressBar.ProgressFormatter formatter, TextPaint textPaint) {
+        if (!isSamePaint(mPaint, textPaint) || mFormatter != formatter || mMax != max) {
+            mPaint.set(textPaint);
+            mPaint.setTextAlign(Paint.Align.LEFT);
+            mFormatter = formatter;
+            mMax = max;
+            mPrecomputed.clear();
+            mLayout = null;
+        }
+    }
+
+    private static StaticLayout build(CharSequence text, TextPaint paint) {
+        int width = (int) Math.ceil(Layout.getDesiredWidth(text, paint));
+        return new StaticLayout(text, paint, width, Layout.Alignment.ALIGN_CENTER, 1.0f, 0.0f, false);
+    }
+
+    private static boolean isSamePaint(TextPaint paint, TextPaint textPaint) {
+        Typeface typeface = textPaint.getTypeface();
+        return paint.getTextSize() == textPaint.getTextSize()
+                && paint.getColor() == textPaint.getColor()
+                && paint.getTypeface() == typeface;
+    }
+
+    /**
+     * The same chars with the spans starting and ending at the same positions, compared without allocating
+     */
+    private static boolean isSameText(Spanned text, Spanned other) {
+        if (text == other) {
+            return true;
+        }
+        if (text == null || other == null || !TextUtils.equals(text, other)) {
+            return false;
+        }
+
+        int length = text.length();
+        int transition = 0;
+        while (transition < length) {
+            int next = text.nextSpanTransition(transition, length, Object.class);
+            if (next != other.nextSpanTransition(transition, length, Object.class)) {
+                return false;
+            }
+            transition = next;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,162 @@
+package com.dinuscxj.progressbar;
+
+import java.util.Arrays;
+
+/**
+ * Rendering metrics of one or more {@link CircleProgressDrawable}s, enabled by
+ * {@link CircleProgressDrawable#setRenderMetrics(RenderMetrics)}. One instance can be shared by many
+ * drawables to aggregate them. Recording allocates nothing, only {@link #snapshot()} does.
+ * Must be used on the thread drawing the progress bars.
+ */
+public final class RenderMetrics {
+    //The count of the latest draw durations kept for the percentiles
+    private static final int DURATION_WINDOW = 256;
+    private static final int STYLE_COUNT = 3;
+
+    private final long[] mDrawDurations = new long[DURATION_WINDOW];
+    private int mDrawDurationIndex;
+
+    private long mDrawCount;
+    private long mDrawDurationTotalNanos;
+    private long mDrawDurationMinNanos = Long.MAX_VALUE;
+    private long mDrawDurationMaxNanos;
+
+    private long mInvalidationsRequested;
+    private long mInvalidationsSkipped;
+
+    //Indexed by the style of the drawable
+    private final long[] mFramesByStyle = new long[STYLE_COUNT];
+    private final long[] mDrawCallsByStyle = new long[STYLE_COUNT];
+    private int mLastFrameDrawCalls;
+
+    private long mShaderRebuilds;
+    private long mFormatterInvocations;
+
+    void onDraw(int style, long durationNanos, int drawCalls) {
+        mDrawCount++;
+        mDrawDurationTotalNanos += durationNanos;
+        mDrawDurationMinNanos = Math.min(mDrawDurationMinNanos, durationNanos);
+        mDrawDurationMaxNanos = Math.max(mDrawDurationMaxNanos, durationNanos);
+        mDrawDurations[mDrawDurationIndex] = durationNanos;
+        mDrawDurationIndex = (mDrawDurationIndex + 1) % DURATION_WINDOW;
+
+        if (style >= 0 && style < STYLE_COUNT) {
+            mFramesByStyle[style]++;
+            mDrawCallsByStyle[style] += drawCalls;
+        }
+        mLastFrameDrawCalls = drawCalls;
+    }
+
+    void onInvalidate(boolean skipped) {
+        mInvalidationsRequested++;
+        if (skipped) {
+            mInvalidationsSkipped++;
+        }
+    }
+
+    void onShaderRebuild() {
+        mShaderRebuilds++;
+    }
+
+    void onFormat() {
+        mFormatterInvocations++;
+    }
+
+    public void reset() {
+        Arrays.fill(mDrawDurations, 0);
+        mDrawDurationIndex = 0;
+        mDrawCount = 0;
+        mDrawDurationTotalNanos = 0;
+        mDrawDurationMinNanos = Long.MAX_VALUE;
+        mDrawDurationMaxNanos = 0;
+        mInvalidationsRequested = 0;
+        mInvalidationsSkipped = 0;
+        Arrays.fill(mFramesByStyle, 0);
+        Arrays.fill(mDrawCallsByStyle, 0);
+        mLastFrameDrawCalls = 0;
+        mShaderRebuilds = 0;
+        mFormatterInvocations = 0;
+    }
+
+    public Snapshot snapshot() {
+        int windowSize = (int) Math.min(mDrawCount, DURATION_WINDOW);
+        long[] durations = Arrays.copyOf(mDrawDurations, windowSize);
+        Arrays.sort(durations);
+        long p99 = windowSize == 0 ? 0 : durations[Math.min(windowSize - 1, (int) Math.ceil(windowSize * 0.99) - 1)];
+
+        float[] drawCallsPerFrame = new float[STYLE_COUNT];
+        for (int i = 0; i < STYLE_COUNT; i++) {
+            drawCallsPerFrame[i] = mFramesByStyle[i] == 0 ? 0 : (float) mDrawCallsByStyle[i] / mFramesByStyle[i];
+        }
+
+        return new Snapshot(mDrawCount,
+                mDrawCount == 0 ? 0 : mDrawDurationMinNanos,
+                mDrawCount == 0 ? 0 : mDrawDurationTotalNanos / mDrawCount,
+                p99, mDrawDurationMaxNanos,
+                mInvalidationsRequested, mInvalidationsSkipped,
+                drawCallsPerFrame, mLastFrameDrawCalls,
+                mShaderRebuilds, mFormatterInvocations);
+    }
+
+    /**
+     * The immutable metrics at the time of {@link #snapshot()}, the durations are in nanoseconds and
+     * the percentile covers the latest 256 draws
+     */
+    public static final class Snapshot {
+        public final long drawCount;
+        public final long drawMinNanos;
+        public final long drawAvgNanos;
+        public final long drawP99Nanos;
+        public final long drawMaxNanos;
+
+        public final long invalidationsRequested;
+        public final long invalidationsSkipped;
+
+        private final float[] mDrawCallsPerFrame;
+        public final int lastFrameDrawCalls;
+
+        public final long shaderRebuilds;
+        public final long formatterInvocations;
+
+        Snapshot(long drawCount, long drawMinNanos, long drawAvgNanos, long drawP99Nanos, long drawMaxNanos,
+                 long invalidationsRequested, long invalidationsSkipped,
+                 float[] drawCallsPerFrame, int lastFrameDrawCalls,
+                 long shaderRebuilds, long formatterInvocations) {
+            this.drawCount = drawCount;
+            this.drawMinNanos = drawMinNanos;
+            this.drawAvgNanos = drawAvgNanos;
+            this.drawP99Nanos = drawP99Nanos;
+            this.drawMaxNanos = drawMaxNanos;
+            this.invalidationsRequested = invalidationsRequested;
+            this.invalidationsSkipped = invalidationsSkipped;
+            this.mDrawCallsPerFrame = drawCallsPerFrame;
+            this.lastFrameDrawCalls = lastFrameDrawCalls;
+            this.shaderRebuilds = shaderRebuilds;
+            this.formatterInvocations = formatterInvocations;
+        }
+
+        /**
+         * @return the average canvas draw calls per frame of the style, 0 if never drawn
+         */
+        public float getDrawCallsPerFrame(@CircleProgressDrawable.Style int style) {
+            return style >= 0 && style < mDrawCallsPerFrame.length ? mDrawCallsPerFrame[style] : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "RenderMetrics{draws=" + drawCount
+                    + ", min=" + drawMinNanos / 1000 + "us"
+                    + ", avg=" + drawAvgNanos / 1000 + "us"
+                    + ", p99=" + drawP99Nanos / 1000 + "us"
+                    + ", max=" + drawMaxNanos / 1000 + "us"
+                    + ", invalidations=" + invalidationsRequested
+                    + ", skipped=" + invalidationsSkipped
+                    + ", drawCalls(line/solid/solidLine)=" + mDrawCallsPerFrame[CircleProgressDrawable.LINE]
+                    + "/" + mDrawCallsPerFrame[CircleProgressDrawable.SOLID]
+                    + "/" + mDrawCallsPerFrame[CircleProgressDrawable.SOLID_LINE]
+                    + ", shaderRebuilds=" + shaderRebuilds
+                    + ", formats=" + formatterInvocations
+                    + '}';
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.dinuscxj.progressbar;
+
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+import android.graphics.SweepGradient;
+import android.support.v4.util.LruCache;
+
+/**
+ * A process wide LRU cache of the progress gradients, so identically styled progress bars share
+ * the same Shader instead of building their own. The cached shaders are never mutated after creation.
+ */
+public final class ShaderCache {
+    public static final int DEFAULT_MAX_SIZE = 64;
+
+    static final int LINEAR = 0;
+    static final int RADIAL = 1;
+    static final int SWEEP = 2;
+
+    private static final LruCache<Key, Shader> sCache = new LruCache<>(DEFAULT_MAX_SIZE);
+
+    //Reused for every look up and guarded by itself, never stored in the cache
+    private static final Key sLookupKey = new Key();
+
+    private static boolean sEnabled = true;
+
+    private ShaderCache() {
+    }
+
+    /**
+     * @param maxSize the max count of the cached shaders, 0 disables the cache
+     */
+    public static void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            sCache.evictAll();
+        } else {
+            sCache.resize(maxSize);
+        }
+        sEnabled = maxSize > 0;
+    }
+
+    public static int maxSize() {
+        return sEnabled ? sCache.maxSize() : 0;
+    }
+
+    public static int size() {
+        return sCache.size();
+    }
+
+    public static int hitCount() {
+        return sCache.hitCount();
+    }
+
+    public static int missCount() {
+        return sCache.missCount();
+    }
+
+    public static int evictionCount() {
+        return sCache.evictionCount();
+    }
+
+    public static void clear() {
+        sCache.evictAll();
+    }
+
+    /**
+     * @param mode           one of LINEAR, RADIAL and SWEEP
+     * @param rotateDegrees  the rotation of the local matrix around the center, 0 means no local matrix
+     */
+    static Shader obtain(int mode, int startColor, int endColor,
+                         float left, float top, float bottom,
+                         float centerX, float centerY, float radius, float rotateDegrees) {
+        if (!sEnabled) {
+            return create(mode, startColor, endColor, left, top, bottom, centerX, centerY, radius, rotateDegrees);
+        }
+
+        Key lookupKey = sLookupKey;
+        synchronized (lookupKey) {
+            lookupKey.set(mode, startColor, endColor, left, top, bottom, centerX, centerY, radius, rotateDegrees);
+            Shader shader = sCache.get(lookupKey);
+            if (shader == null) {
+                shader = create(mode, startColor, endColor, left, top, bottom, centerX, centerY, radius, rotateDegrees);
+                sCache.put(lookupKey.copy(), shader);
+            }
+            return shader;
+        }
+    }
+
+    private static Shader create(int mode, int startColor, int endColor,
+                                 float left, float top, float bottom,
+                                 float centerX, float centerY, float radius, float rotateDegrees) {
+        Shader shader;
+        switch (mode) {
+            case RADIAL:
+                shader = new RadialGradient(centerX, centerY, radius, startColor, endColor, Shader.TileMode.CLAMP);
+                break;
+            case SWEEP:
+                shader = new SweepGradient(centerX, centerY, new int[]{startColor, endColor}, new float[]{0.0f, 1.0f});
+                break;
+            case LINEAR:
+            default:
+                shader = new LinearGradient(left, top, left, bottom, startColor, endColor, Shader.TileMode.CLAMP);
+                break;
+        }
+
+        if (rotateDegrees != 0.0f) {
+            Matrix matrix = new Matrix();
+            matrix.setRotate(rotateDegrees, centerX, centerY);
+            shader.setLocalMatrix(matrix);
+        }
+        return shader;
+    }
+
+    private static final class Key {
+        int mode;
+        int startColor;
+        int endColor;
+        float left;
+        float top;
+        float bottom;
+        float centerX;
+        float centerY;
+        float radius;
+        float rotateDegrees;
+
+        void set(int mode, int startColor, int endColor, float left, float top, float bottom,
+                 float centerX, float centerY, float radius, float rotateDegrees) {
+            this.mode = mode;
+            this.startColor = startColor;
+            this.endColor = endColor;
+            this.left = left;
+            this.top = top;
+            this.bottom = bottom;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.radius = radius;
+            this.rotateDegrees = rotateDegrees;
+        }
+
+        Key copy() {
+            Key key = new Key();
+            key.set(mode, startColor, endColor, left, top, bottom, centerX, centerY, radius, rotateDegrees);
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mode == key.mode
+                    && startColor == key.startColor
+                    && endColor == key.endColor
+                    && Float.compare(left, key.left) == 0
+                    && Float.compare(top, key.top) == 0
+                    && Float.compare(bottom, key.bottom) == 0
+                    && Float.compare(centerX, key.centerX) == 0
+                    && Float.compare(centerY, key.centerY) == 0
+                    && Float.compare(radius, key.radius) == 0
+                    && Float.compare(rotateDegrees, key.rotateDegrees) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mode;
+            result = 31 * result + startColor;
+            result = 31 * result + endColor;
+            result = 31 * result + Float.floatToIntBits(left);
+            result = 31 * result + Float.floatToIntBits(top);
+            result = 31 * result + Float.floatToIntBits(bottom);
+            result = 31 * result + Float.floatToIntBits(centerX);
+            result = 31 * result + Float.floatToIntBits(centerY);
+            result = 31 * result + Float.floatToIntBits(radius);
+            result = 31 * result + Float.floatToIntBits(rotateDegrees);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.dinuscxj.progressbar;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import android.graphics.Paint;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Renders {@link CircleProgressBar} in every style, shader and cap, and fails when the draw path exceeds
+ * its budgets: the draw calls per frame, the bytes allocated per draw and the shader rebuilds per setter.
+ * The recorded draw operations are compared with the golden logs in src/test/resources/golden, a missing
+ * golden log fails the test, and -Dgolden.record=true writes all of them. The frames are drawn through
+ * onDraw, View.draw doesn't reach it under Robolectric.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 27)
+public class DrawBudgetTest {
+    private static final int SIZE = 200;
+
+    //background, second progress, first progress and text
+    private static final int MAX_DRAW_CALLS_PER_FRAME = 4;
+    private static final long MAX_ALLOCATED_BYTES_PER_DRAW = 16;
+    private static final int MAX_SHADER_REBUILDS_PER_SETTER = 1;
+
+    private static final int MEASURED_DRAW_COUNT = 200;
+
+    private static final String[] STYLE_NAMES = {"line", "solid", "solid_line"};
+    private static final String[] SHADER_NAMES = {"linear", "radial", "sweep"};
+    //butt, round and square
+    private static final int CAP_COUNT = 3;
+
+    private final int mStyle;
+    private final int mShader;
+    private final Paint.Cap mCap;
+
+    private CircleProgressBar mProgressBar;
+    private RenderMetrics mMetrics;
+    private RecordingCanvas mCanvas;
+
+    /**
+     * @param cap the ordinal of the Paint.Cap, the android classes can't be passed into the sandbox
+     */
+    public DrawBudgetTest(int style, int shader, int cap) {
+        mStyle = style;
+        mShader = shader;
+        mCap = Paint.Cap.values()[cap];
+    }
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "style={0} shader={1} cap={2}")
+    public static Collection<Object[]> parameters() {
+        List<Object[]> parameters = new ArrayList<>();
+        for (int style = 0; style < STYLE_NAMES.length; style++) {
+            for (int shader = 0; shader < SHADER_NAMES.length; shader++) {
+                for (int cap = 0; cap < CAP_COUNT; cap++) {
+                    parameters.add(new Object[]{style, shader, cap});
+                }
+            }
+        }
+        return parameters;
+    }
+
+    @Before
+    public void setUp() {
+        mProgressBar = new CircleProgressBar(RuntimeEnvironment.application);
+        mProgressBar.edit()
+                .style(mStyle)
+                .shader(mShader)
+                .cap(mCap)
+                .startColor(0xff00ff00)
+                .endColor(0xff0000ff)
+                .secondStartColor(0x8000ff00)
+                .secondEndColor(0x800000ff)
+                .progress(30, 60, 100)
+                .apply();
+        mProgressBar.measure(View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY));
+        mProgressBar.layout(0, 0, SIZE, SIZE);
+
+        mMetrics = new RenderMetrics();
+        mProgressBar.setRenderMetrics(mMetrics);
+        mCanvas = new RecordingCanvas();
+    }
+
+    @Test
+    public void drawCallsPerFrameWithinBudget() {
+        mProgressBar.onDraw(mCanvas);
+
+        assertTrue("draw calls " + mCanvas.getDrawCalls(), mCanvas.getDrawCalls() <= MAX_DRAW_CALLS_PER_FRAME);
+        assertEquals(mCanvas.getDrawCalls(), mMetrics.snapshot().lastFrameDrawCalls);
+    }
+
+    @Test
+    public void allocatedBytesPerDrawWithinBudget() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+
+        CircleProgressDrawable drawable = mProgressBar.getProgressDrawable();
+        //warm up the buffers, the text measure and the shaders
+        for (int i = 0; i < MEASURED_DRAW_COUNT; i++) {
+            drawable.setProgressSecond(i % 100);
+            drawable.draw(mCanvas);
+        }
+
+        //only the draws are measured, the invalidation of the setter allocates in the Robolectric shadows
+        long threadId = Thread.currentThread().getId();
+        long allocatedBytes = 0;
+        for (int i = 0; i < MEASURED_DRAW_COUNT; i++) {
+            drawable.setProgressSecond(i % 100);
+            long startBytes = allocationBean.getThreadAllocatedBytes(threadId);
+            drawable.draw(mCanvas);
+            allocatedBytes += allocationBean.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+        long bytesPerDraw = allocatedBytes / MEASURED_DRAW_COUNT;
+
+        assertTrue("allocated bytes per draw " + bytesPerDraw, bytesPerDraw <= MAX_ALLOCATED_BYTES_PER_DRAW);
+    }
+
+    @Test
+    public void shaderRebuildsPerSetterWithinBudget() {
+        mProgressBar.onDraw(mCanvas);
+
+        mMetrics.reset();
+        mProgressBar.setProgressStartColor(0xffff0000);
+        mProgressBar.onDraw(mCanvas);
+        long rebuilds = mMetrics.snapshot().shaderRebuilds;
+        assertTrue("shader rebuilds " + rebuilds, rebuilds <= MAX_SHADER_REBUILDS_PER_SETTER);
+
+        mMetrics.reset();
+        mProgressBar.setProgressFirst(70);
+        mProgressBar.onDraw(mCanvas);
+        assertEquals("a progress change must not rebuild the shaders", 0, mMetrics.snapshot().shaderRebuilds);
+    }
+
+    @Test
+    public void steadyStateFrameMissReusesBitmap() {
+        assumeTrue(mStyle == CircleProgressDrawable.LINE);
+        CircleProgressDrawable drawable = mProgressBar.getProgressDrawable();
+        //holds 4 frames, every line count misses while cycling through all of them
+        LineFrameCache.setMaxBytes(4 * SIZE * SIZE * 4);
+        LineFrameCache.clear();
+        drawable.setFrameCacheEnabled(true);
+        try {
+            drawLineCountCycle(drawable);
+            int createCount = LineFrameCache.createCount();
+            int missCount = LineFrameCache.missCount();
+            drawLineCountCycle(drawable);
+
+            assertTrue("no frame missed", LineFrameCache.missCount() > missCount);
+            assertEquals("a steady state miss created a bitmap", createCount, LineFrameCache.createCount());
+        } finally {
+            LineFrameCache.setMaxBytes(LineFrameCache.DEFAULT_MAX_BYTES);
+            LineFrameCache.clear();
+        }
+    }
+
+    private void drawLineCountCycle(CircleProgressDrawable drawable) {
+        for (int progress = 0; progress <= 100; progress++) {
+            drawable.setProgressFirst(progress);
+            drawable.draw(mCanvas);
+        }
+    }
+
+    @Test
+    public void everyInvalidateIsCounted() {
+        CircleProgressDrawable drawable = mProgressBar.getProgressDrawable();
+        mMetrics.reset();
+        drawable.setProgressTextSize(42.0f);
+        drawable.setOverdrawFree(!drawable.isOverdrawFree());
+        drawable.setFrameCacheEnabled(!drawable.isFrameCacheEnabled());
+        //a hide and show cycle from whichever visibility the drawable has
+        boolean visible = drawable.isVisible();
+        drawable.setVisible(!visible, false);
+        drawable.setVisible(visible, false);
+
+        assertEquals(5, mMetrics.snapshot().invalidationsRequested);
+    }
+
+    @Test
+    public void drawOperationsMatchGolden() throws IOException {
+        mCanvas.setRecording(true);
+        mProgressBar.onDraw(mCanvas);
+        String log = mCanvas.getLog();
+
+        File golden = new File("src/test/resources/golden", STYLE_NAMES[mStyle] + "_" + SHADER_NAMES[mShader]
+                + "_" + mCap.name().toLowerCase() + ".txt");
+        if (Boolean.getBoolean("golden.record")) {
+            write(golden, log);
+            return;
+        }
+        assertTrue("missing " + golden + ", record it with -Dgolden.record=true", golden.exists());
+        assertEquals("the draw operations differ from " + golden, read(golden), log);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        file.getParentFile().mkdirs();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] content = new byte[(int) file.length()];
+            int read = 0;
+            while (read < content.length) {
+                int count = in.read(content, read, content.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+            return new String(content, 0, read, "UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}
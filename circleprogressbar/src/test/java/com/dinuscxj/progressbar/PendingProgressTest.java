@@ -0,0 +1,130 @@
+package com.dinuscxj.progressbar;
+
+import android.app.Activity;
+import android.widget.FrameLayout;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * A progress posted and not drawn yet must never override a later progress written on the UI thread,
+ * attached and visible, and hidden.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 27)
+public class PendingProgressTest {
+    private CircleProgressBar mProgressBar;
+    private RecordingCanvas mCanvas;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.setupActivity(Activity.class);
+        FrameLayout content = new FrameLayout(activity);
+        activity.setContentView(content);
+        mProgressBar = new CircleProgressBar(activity);
+        content.addView(mProgressBar);
+        //the window of Robolectric is never shown, so the visibility isn't dispatched by itself
+        mProgressBar.onVisibilityAggregated(true);
+        mCanvas = new RecordingCanvas();
+    }
+
+    @Test
+    public void postThenSetProgressFirst() {
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.setProgressFirst(30);
+
+        assertProgress(30, 20);
+    }
+
+    @Test
+    public void postThenSetProgressSecond() {
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.setProgressSecond(40);
+
+        assertProgress(10, 40);
+    }
+
+    @Test
+    public void postThenEdit() {
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.edit().progress(30, 40, 100).apply();
+
+        assertProgress(30, 40);
+    }
+
+    @Test
+    public void postThenAnimate() {
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.animateProgressTo(30, 40, 0, null);
+
+        assertProgress(30, 40);
+    }
+
+    @Test
+    public void postThenSetProgressWhileHidden() {
+        mProgressBar.onVisibilityAggregated(false);
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.setProgressFirst(30);
+
+        assertProgress(30, 20);
+    }
+
+    @Test
+    public void setWhileHiddenThenSetWhenShown() {
+        mProgressBar.onVisibilityAggregated(false);
+        mProgressBar.setProgressFirst(10);
+        mProgressBar.onVisibilityAggregated(true);
+        mProgressBar.setProgressFirst(30);
+
+        assertProgress(30, 0);
+    }
+
+    @Test
+    public void animateWhileHiddenSetsAtOnce() {
+        mProgressBar.onVisibilityAggregated(false);
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.animateProgressTo(30, 40, 1000, null);
+
+        assertFalse(mProgressBar.isProgressAnimating());
+        assertProgress(30, 40);
+    }
+
+    @Test
+    public void editWhileHiddenThenPost() {
+        mProgressBar.onVisibilityAggregated(false);
+        mProgressBar.edit().progress(30, 40, 50).apply();
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.onVisibilityAggregated(true);
+
+        assertProgress(10, 20);
+        assertEquals(50, mProgressBar.getMax());
+    }
+
+    @Test
+    public void postThenSetMax() {
+        mProgressBar.postProgress(10, 20);
+        mProgressBar.setMax(50);
+
+        assertProgress(10, 20);
+        assertEquals(50, mProgressBar.getMax());
+    }
+
+    /**
+     * The progress of the view and the one drawn by the next frame
+     */
+    private void assertProgress(int first, int second) {
+        assertEquals(first, mProgressBar.getProgress());
+        assertEquals(second, mProgressBar.getProgressSecond());
+
+        mProgressBar.onDraw(mCanvas);
+        assertEquals(first, mProgressBar.getProgressDrawable().getProgress());
+        assertEquals(second, mProgressBar.getProgressDrawable().getProgressSecond());
+    }
+}
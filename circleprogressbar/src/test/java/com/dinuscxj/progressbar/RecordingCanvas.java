@@ -0,0 +1,136 @@
+package com.dinuscxj.progressbar;
+
+import java.util.Locale;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+
+/**
+ * A Canvas that draws nothing but counts the draw calls and, when recording, writes every operation
+ * with its parameters into a log, which is compared with the golden logs of the tests
+ */
+class RecordingCanvas extends Canvas {
+    private final StringBuilder mLog = new StringBuilder();
+    private boolean mRecording;
+    private int mDrawCalls;
+
+    void setRecording(boolean recording) {
+        mRecording = recording;
+    }
+
+    int getDrawCalls() {
+        return mDrawCalls;
+    }
+
+    String getLog() {
+        return mLog.toString();
+    }
+
+    void reset() {
+        mLog.setLength(0);
+        mDrawCalls = 0;
+    }
+
+    @Override
+    public void drawLines(float[] pts, int offset, int count, Paint paint) {
+        mDrawCalls++;
+        if (mRecording) {
+            float checksum = 0.0f;
+            for (int i = offset; i < offset + count; i++) {
+                checksum += pts[i] * (i - offset + 1);
+            }
+            record("drawLines count=%d checksum=%.1f %s", count / 4, checksum, describe(paint));
+        }
+    }
+
+    @Override
+    public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        mDrawCalls++;
+        if (mRecording) {
+            record("drawArc oval=[%.1f,%.1f,%.1f,%.1f] start=%.2f sweep=%.2f useCenter=%b %s",
+                    oval.left, oval.top, oval.right, oval.bottom, startAngle, sweepAngle, useCenter, describe(paint));
+        }
+    }
+
+    @Override
+    public void drawText(char[] text, int index, int count, float x, float y, Paint paint) {
+        mDrawCalls++;
+        if (mRecording) {
+            record("drawText \"%s\" x=%.1f y=%.1f %s", new String(text, index, count), x, y, describe(paint));
+        }
+    }
+
+    @Override
+    public void drawText(CharSequence text, int start, int end, float x, float y, Paint paint) {
+        mDrawCalls++;
+        if (mRecording) {
+            record("drawText \"%s\" x=%.1f y=%.1f %s", text.subSequence(start, end), x, y, describe(paint));
+        }
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+        mDrawCalls++;
+        if (mRecording) {
+            record("drawBitmap %dx%d left=%.1f top=%.1f", bitmap.getWidth(), bitmap.getHeight(), left, top);
+        }
+    }
+
+    @Override
+    public int save() {
+        if (mRecording) {
+            record("save");
+        }
+        return 1;
+    }
+
+    @Override
+    public int saveLayer(float left, float top, float right, float bottom, Paint paint, int saveFlags) {
+        if (mRecording) {
+            record("saveLayer alpha=%d", paint.getAlpha());
+        }
+        return 1;
+    }
+
+    @Override
+    public void restore() {
+        if (mRecording) {
+            record("restore");
+        }
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        if (mRecording) {
+            record("restoreToCount");
+        }
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        if (mRecording) {
+            record("translate %.1f %.1f", dx, dy);
+        }
+    }
+
+    @Override
+    public void rotate(float degrees) {
+        if (mRecording) {
+            record("rotate %.2f", degrees);
+        }
+    }
+
+    private void record(String format, Object... args) {
+        mLog.append(String.format(Locale.US, format, args)).append('\n');
+    }
+
+    private static String describe(Paint paint) {
+        Shader shader = paint.getShader();
+        return String.format(Locale.US, "color=#%08x style=%s stroke=%.1f cap=%s shader=%s",
+                paint.getColor(), paint.getStyle(), paint.getStrokeWidth(), paint.getStrokeCap(),
+                shader == null ? "none" : shader.getClass().getSimpleName());
+    }
+}